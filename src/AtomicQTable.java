@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tablica Q bezpieczna dla wielu wątków bez blokad.
+ * Wartości double są przechowywane jako bity long w {@link AtomicLongArray},
+ * a {@link #blend} wykonuje aktualizację pętlą compare-and-set.
+ */
+public class AtomicQTable implements QTable {
+    private final int numStates;
+    private final int numActions;
+    /** Bity wartości Q: Double.doubleToRawLongBits(Q(state, action)) */
+    private final AtomicLongArray bits;
+
+    /**
+     * Tworzy wyzerowaną tablicę Q.
+     * @param numStates liczba stanów
+     * @param numActions liczba akcji
+     */
+    public AtomicQTable(int numStates, int numActions) {
+        this.numStates = numStates;
+        this.numActions = numActions;
+        this.bits = new AtomicLongArray(numStates * numActions);
+    }
+
+    @Override
+    public int numStates() {
+        return numStates;
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public double get(int state, int action) {
+        return Double.longBitsToDouble(bits.get(state * numActions + action));
+    }
+
+    @Override
+    public void set(int state, int action, double value) {
+        bits.set(state * numActions + action, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public double blend(int state, int action, double target, double alpha) {
+        int i = state * numActions + action;
+        while (true) {
+            long oldBits = bits.get(i);
+            double oldQ = Double.longBitsToDouble(oldBits);
+            double tdError = target - oldQ;
+            if (bits.compareAndSet(i, oldBits, Double.doubleToRawLongBits(oldQ + alpha * tdError))) {
+                return tdError;
+            }
+        }
+    }
+}
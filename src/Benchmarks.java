@@ -0,0 +1,423 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Mikrobenchmarki gorących ścieżek: Board, QLearningAgent i TicTacToeTrainer.
+ * Każdy pomiar ma rozgrzewkę i kilka iteracji pomiarowych; raportowany jest średni
+ * czas operacji (ns/op, z odchyleniem standardowym) oraz liczba bajtów zaalokowanych
+ * na operację (B/op, odpowiednik gc.alloc.rate.norm z JMH -prof gc).
+ * <p>
+ * Uruchomienie: {@code java Benchmarks [nazwa ...] [--csv] [--gate-alloc] [--gate-determinism]} – bez nazw
+ * wykonywane są wszystkie benchmarki, nazwa wybiera benchmarki, których nazwa zaczyna się od podanego tekstu.
+ * Z opcją {@code --gate-alloc} program kończy się kodem 1, jeśli którykolwiek benchmark
+ * oznaczony jako bezalokacyjny (gorąca pętla treningu) alokuje pamięć. Opcja {@code --gate-determinism}
+ * (przed benchmarkami) dwukrotnie trenuje agenta z tym samym ziarnem i kończy program kodem 1,
+ * jeśli sumy kontrolne tablic Q się różnią.
+ */
+public class Benchmarks {
+    /** Liczba iteracji rozgrzewkowych */
+    private static final int WARMUP_ITERATIONS = 5;
+    /** Liczba iteracji pomiarowych */
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    /** Czas trwania jednej iteracji w nanosekundach */
+    private static final long ITERATION_NANOS = 300_000_000L;
+    /** Liczba przygotowanych plansz, po których cyklicznie przechodzą benchmarki */
+    private static final int NUM_BOARDS = 1024;
+
+    /** Pojedyncza mierzona operacja; wynik trafia do {@link #sink}, by JIT go nie usunął */
+    @FunctionalInterface
+    interface Op {
+        long run();
+    }
+
+    /** Wynik pomiaru jednego benchmarku */
+    record Result(String name, double nsPerOp, double nsError, double bytesPerOp, boolean allocationFree) {
+    }
+
+    /** Ujście wyników, aby kompilator JIT nie usunął mierzonego kodu */
+    private static volatile long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<String> filters = new ArrayList<>();
+    private final List<Result> results = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        Benchmarks benchmarks = new Benchmarks();
+        boolean csv = false;
+        boolean gateAlloc = false;
+        for (String arg : args) {
+            if (arg.equals("--csv")) {
+                csv = true;
+            } else if (arg.equals("--gate-determinism")) {
+                if (!determinismGatePassed()) {
+                    System.exit(1);
+                }
+            } else if (arg.equals("--gate-alloc")) {
+                gateAlloc = true;
+            } else {
+                benchmarks.filters.add(arg);
+            }
+        }
+        benchmarks.runAll();
+        benchmarks.print(csv);
+        if (gateAlloc && !benchmarks.allocationGatePassed()) {
+            System.exit(1);
+        }
+    }
+
+    private void runAll() throws IOException {
+        Random rand = new Random(42);
+        Board[] boards = randomBoards(rand);
+        int[] emptyPos = new int[9];
+        int mask = NUM_BOARDS - 1;
+        int[] cursor = new int[1];
+
+        runAllocationFree("board.isWin", () -> boards[cursor[0]++ & mask].isWin((byte) 1) ? 1 : 0);
+        runAllocationFree("board.getStateIndex", () -> boards[cursor[0]++ & mask].getStateIndex());
+        runAllocationFree("board.getEmptyPositions", () -> boards[cursor[0]++ & mask].getEmptyPositions(emptyPos));
+        runAllocationFree("transitions.status", () -> Transitions.status(boards[cursor[0]++ & mask].getStateIndex()));
+        short[] tableEmptyMasks = new short[Transitions.NUM_STATES];
+        byte[] statuses = new byte[Transitions.NUM_STATES];
+        int[] winningMoves = new int[Transitions.NUM_STATES];
+        runAllocationFree("transitions.build", () -> {
+            Transitions.build(tableEmptyMasks, statuses, winningMoves);
+            return statuses[cursor[0]++ % Transitions.NUM_STATES];
+        });
+
+        QLearningAgent agent = new QLearningAgent(0.1, 0.9, 0.1);
+        TicTacToeTrainer trainer = new TicTacToeTrainer(agent, 0, 1.0, 0.1);
+        trainer.setReportInterval(0);
+        for (int i = 0; i < 100_000; i++) {
+            trainer.playEpisode();
+        }
+        runAllocationFree("agent.chooseAction", () -> {
+            Board b = boards[cursor[0]++ & mask];
+            return agent.chooseAction(b.getStateIndex(), b.getFields());
+        });
+        runAllocationFree("agent.chooseAction.emptyMask", () -> {
+            int state = boards[cursor[0]++ & mask].getStateIndex();
+            return agent.chooseAction(state, Transitions.emptyMask(state));
+        });
+        runAllocationFree("agent.update", () -> {
+            Board b = boards[cursor[0]++ & mask];
+            Board next = boards[(cursor[0] + 7) & mask];
+            agent.update(b.getStateIndex(), Integer.numberOfTrailingZeros(b.getEmptyMask()), 0.5, next.getStateIndex());
+            return 0;
+        });
+        QLearningAgent greedy = new QLearningAgent(0.1, 0.9, 0.0, agent.getQTable());
+        int[] states = new int[NUM_BOARDS];
+        int[] emptyMasks = new int[NUM_BOARDS];
+        int[] actions = new int[NUM_BOARDS];
+        double[] maxQ = new double[NUM_BOARDS];
+        for (int i = 0; i < NUM_BOARDS; i++) {
+            states[i] = boards[i].getStateIndex();
+            emptyMasks[i] = boards[i].getEmptyMask();
+        }
+        runAllocationFree("agent.chooseAction.loop1024", () -> {
+            long acc = 0;
+            for (Board b : boards) {
+                acc += greedy.chooseAction(b.getStateIndex(), b.getFields());
+            }
+            return acc;
+        });
+        runAllocationFree("agent.chooseBestActions1024", () -> {
+            greedy.chooseBestActions(states, emptyMasks, actions, maxQ, NUM_BOARDS);
+            return actions[cursor[0]++ & mask];
+        });
+        runAllocationFree("trainer.willOpponentWinNext", () -> trainer.willOpponentWinNext(boards[cursor[0]++ & mask], (byte) 1) ? 1 : 0);
+        runAllocationFree("trainer.episode", () -> {
+            trainer.playEpisode();
+            return 0;
+        });
+
+        TicTacToeTrainer measured = new TicTacToeTrainer(agent, 0, 1.0, 0.1);
+        measured.setReportInterval(0);
+        measured.setMetrics(new TrainingMetrics(10_000));
+        runAllocationFree("trainer.episode.metrics", () -> {
+            measured.trainEpisode();
+            return 0;
+        });
+
+        QLearningAgent pooled = new QLearningAgent(0.1, 0.9, 0.1, false);
+        TicTacToeTrainer poolTrainer = new TicTacToeTrainer(pooled, 1_000_000, 1.0, 0.1);
+        poolTrainer.setReportInterval(0);
+        poolTrainer.setOpponentPool(OpponentPool.curriculum(pooled));
+        runAllocationFree("trainer.episode.pool", () -> {
+            poolTrainer.trainEpisode();
+            return 0;
+        });
+
+        QLearningAgent traced = new QLearningAgent(0.1, 0.9, 0.1, false);
+        TicTacToeTrainer traceTrainer = new TicTacToeTrainer(traced, 1_000_000, 1.0, 0.1);
+        traceTrainer.setReportInterval(0);
+        traceTrainer.setOpponentPool(OpponentPool.curriculum(traced));
+        traceTrainer.setEpisodeTrace(EpisodeTrace.lambda(0.8));
+        runAllocationFree("trainer.episode.lambda", () -> {
+            traceTrainer.trainEpisode();
+            return 0;
+        });
+
+        for (ReplayBuffer.Sampling sampling : ReplayBuffer.Sampling.values()) {
+            ReplayBuffer buffer = new ReplayBuffer(1 << 16, sampling);
+            for (int i = 0; i < 1 << 16; i++) {
+                buffer.add(states[i & mask], actions[i & mask], (i % 3) - 1, states[(i + 1) & mask]);
+            }
+            QLearningAgent learner = new QLearningAgent(0.1, 0.9, 0.0, false);
+            runAllocationFree("replay." + sampling.name().toLowerCase() + ".batch32", () -> buffer.replay(learner, 32, null));
+        }
+
+        MctsAgent mcts = new MctsAgent(1000, 1, pooled);
+        mcts.setSeed(1);
+        byte[] emptyFields = new byte[9];
+        runAllocationFree("mcts.chooseAction.1000", () -> mcts.chooseAction(0, emptyFields));
+
+        File file = File.createTempFile("qtable", ".dat");
+        file.deleteOnExit();
+        String filename = file.getPath();
+        silenced(() -> agent.saveQTable(filename));
+        runQuiet("agent.saveQTable", () -> {
+            agent.saveQTable(filename);
+            return 0;
+        });
+        runQuiet("agent.loadQTable", () -> agent.loadQTable(filename) ? 1 : 0);
+        runQuiet("agent.loadQTable.firstMove", () -> {
+            agent.loadQTable(filename);
+            return agent.chooseAction(0, emptyFields);
+        });
+        runQuiet("agent.openLazy.firstMove", () -> {
+            try {
+                QLearningAgent lazy = QLearningAgent.openLazy(filename, 16);
+                int move = lazy.chooseAction(0, emptyFields);
+                ((PagedQTable) lazy.getQTable()).close();
+                return move;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        CompiledPolicy compiled = CompiledPolicy.compile(greedy);
+        runAllocationFree("policy.compiled.loop1024", () -> {
+            long acc = 0;
+            for (Board b : boards) {
+                acc += compiled.chooseAction(b.getStateIndex(), b.getFields());
+            }
+            return acc;
+        });
+        File policyFile = File.createTempFile("policy", ".dat");
+        policyFile.deleteOnExit();
+        String policyFilename = policyFile.getPath();
+        compiled.save(policyFilename);
+        run("policy.compiled.load.firstMove", () -> {
+            try {
+                return CompiledPolicy.load(policyFilename).chooseAction(0, emptyFields);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Losuje zbiór osiągalnych, niekońcowych plansz z co najmniej jednym pustym polem.
+     */
+    private static Board[] randomBoards(Random rand) {
+        Board[] boards = new Board[NUM_BOARDS];
+        int[] emptyPos = new int[9];
+        for (int i = 0; i < NUM_BOARDS; i++) {
+            Board board = new Board();
+            int moves = rand.nextInt(8);
+            byte player = 1;
+            for (int m = 0; m < moves; m++) {
+                int numEmpty = board.getEmptyPositions(emptyPos);
+                int pos = emptyPos[rand.nextInt(numEmpty)];
+                board.makeMove(pos, player);
+                if (board.isWin(player)) {
+                    board.undoMove(pos);
+                    break;
+                }
+                player = (player == 1) ? (byte) 2 : (byte) 1;
+            }
+            boards[i] = board;
+        }
+        return boards;
+    }
+
+    /**
+     * Wykonuje benchmark z wyciszonym standardowym wyjściem (np. komunikaty zapisu pliku).
+     */
+    private void runQuiet(String name, Op op) {
+        silenced(() -> run(name, op));
+    }
+
+    /**
+     * Wykonuje kod z wyciszonym standardowym wyjściem i wyjściem błędów.
+     */
+    private static void silenced(Runnable code) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream nul = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(nul);
+        System.setErr(nul);
+        try {
+            code.run();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+    }
+
+    /**
+     * Mierzy benchmark, który w stanie ustalonym nie może alokować pamięci.
+     */
+    private void runAllocationFree(String name, Op op) {
+        measure(name, op, true);
+    }
+
+    private void run(String name, Op op) {
+        measure(name, op, false);
+    }
+
+    /**
+     * Mierzy jeden benchmark: rozgrzewka, potem iteracje pomiarowe o stałym czasie trwania.
+     */
+    private void measure(String name, Op op, boolean allocationFree) {
+        if (!selected(name)) {
+            return;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(op, null);
+        }
+        double[] nsPerOp = new double[MEASUREMENT_ITERATIONS];
+        long[] allocation = new long[1];
+        long totalOps = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            long ops = iteration(op, allocation);
+            nsPerOp[i] = (System.nanoTime() - start) / (double) ops;
+            totalOps += ops;
+            totalBytes += allocation[0];
+        }
+        double mean = 0;
+        for (double v : nsPerOp) mean += v;
+        mean /= nsPerOp.length;
+        double variance = 0;
+        for (double v : nsPerOp) variance += (v - mean) * (v - mean);
+        double error = Math.sqrt(variance / (nsPerOp.length - 1));
+        results.add(new Result(name, mean, error, totalBytes / (double) totalOps, allocationFree));
+    }
+
+    /**
+     * Wykonuje operację w partiach aż do upływu czasu iteracji.
+     * @param allocation jeśli nie null, w allocation[0] zapisywana jest liczba zaalokowanych bajtów
+     * @return liczba wykonanych operacji
+     */
+    private static long iteration(Op op, long[] allocation) {
+        long threadId = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + ITERATION_NANOS;
+        long ops = 0;
+        long acc = 0;
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        int batch = 1;
+        while (true) {
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                acc += op.run();
+            }
+            ops += batch;
+            long now = System.nanoTime();
+            if (now >= deadline) break;
+            if (now - batchStart < 1_000_000 && batch < 1 << 14) batch <<= 1;
+        }
+        if (allocation != null) {
+            allocation[0] = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        }
+        sink = acc;
+        return ops;
+    }
+
+    private boolean selected(String name) {
+        if (filters.isEmpty()) return true;
+        for (String filter : filters) {
+            if (name.startsWith(filter)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Trenuje agenta dwukrotnie z tym samym ziarnem (jeden wątek, tryb symetryczny, 2 i 4 wątki w trybie SHARDED)
+     * i porównuje sumy kontrolne tablic Q; inne ziarno musi dać inną tablicę.
+     */
+    private static boolean determinismGatePassed() {
+        boolean passed = true;
+        String[] configs = {"1 wątek", "1 wątek, symetria", "2 wątki SHARDED", "4 wątki SHARDED"};
+        for (int c = 0; c < configs.length; c++) {
+            long first = seededChecksum(c, 7);
+            long second = seededChecksum(c, 7);
+            long other = seededChecksum(c, 8);
+            boolean ok = first == second && first != other;
+            System.out.printf("Powtarzalność (%s): %016x %016x – %s%n", configs[c], first, second, ok ? "OK" : "BŁĄD");
+            passed &= ok;
+        }
+        return passed;
+    }
+
+    private static long seededChecksum(int config, long seed) {
+        QLearningAgent agent = new QLearningAgent(0.1, 0.9, 0.7, config == 1);
+        long[] checksum = new long[1];
+        silenced(() -> {
+            if (config < 2) {
+                TicTacToeTrainer trainer = new TicTacToeTrainer(agent, 50_000, 0.9999, 0.01);
+                trainer.setReportInterval(0);
+                trainer.setSeed(seed);
+                trainer.train();
+            } else {
+                ParallelTrainer trainer = new ParallelTrainer(agent, 50_000, 0.9999, 0.01,
+                        config == 2 ? 2 : 4, ParallelTrainer.SyncMode.SHARDED);
+                trainer.setSeed(seed);
+                trainer.train();
+            }
+            checksum[0] = agent.getQTable().checksum();
+        });
+        return checksum[0];
+    }
+
+    /**
+     * Sprawdza, czy benchmarki oznaczone jako bezalokacyjne nie alokują pamięci
+     * (średnio mniej niż 1 bajt na operację – każda prawdziwa alokacja to co najmniej 16 B).
+     * @return true, jeśli żaden z nich nie alokuje
+     */
+    private boolean allocationGatePassed() {
+        boolean passed = true;
+        for (Result r : results) {
+            if (r.allocationFree() && r.bytesPerOp() >= 1.0) {
+                System.err.printf("Benchmark %s alokuje %.1f B/op%n", r.name(), r.bytesPerOp());
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    private void print(boolean csv) {
+        if (csv) {
+            System.out.println("benchmark,ns_per_op,ns_error,bytes_per_op");
+            for (Result r : results) {
+                System.out.printf(Locale.ROOT, "%s,%.3f,%.3f,%.1f%n", r.name(), r.nsPerOp(), r.nsError(), r.bytesPerOp());
+            }
+            return;
+        }
+        System.out.printf("%-32s %14s %10s %10s%n", "Benchmark", "ns/op", "error", "B/op");
+        for (Result r : results) {
+            System.out.printf("%-32s %14.2f %10.2f %10.1f%n", r.name(), r.nsPerOp(), r.nsError(), r.bytesPerOp());
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
     /**
      * Reprezentuje planszę do gry w kółko-krzyżyk 3 × 3.
      */
@@ -5,14 +7,24 @@
         /** Stała: rozmiar planszy 3×3 = 9 pól */
         private static final int N = 9;
 
+        /** Maska bitowa pełnej planszy (9 bitów) */
+        private static final int FULL_MASK = (1 << N) - 1;
+
         /** Wartości pól: 0 = puste, 1 = X, 2 = O */
         private final byte[] fields;
 
+        /** Maski bitowe pól graczy: masks[1] = pola X, masks[2] = pola O (bit i = pole i) */
+        private final int[] masks;
+
+        /** Indeks stanu w systemie trójkowym, aktualizowany przy każdym ruchu */
+        private int stateIndex;
+
         /**
          * Tworzy nową pustą planszę.
          */
         public Board() {
             fields = new byte[N];
+            masks = new int[3];
         }
 
         /**
@@ -21,7 +33,7 @@
          * @return true, jeśli pole jest puste, false w przeciwnym razie
          */
         public boolean isEmpty(int pos) {
-            return fields[pos] == 0;
+            return ((masks[1] | masks[2]) & (1 << pos)) == 0;
         }
 
         /**
@@ -35,6 +47,8 @@
                 return false;
             }
             fields[pos] = player;
+            masks[player] |= 1 << pos;
+            stateIndex += player * Constants.POW3[pos];
             return true;
         }
 
@@ -43,7 +57,13 @@
          * @param pos indeks pola do wyczyszczenia (0-8)
          */
         public void undoMove(int pos) {
+            byte player = fields[pos];
+            if (player == 0) {
+                return;
+            }
             fields[pos] = 0;
+            masks[player] &= ~(1 << pos);
+            stateIndex -= player * Constants.POW3[pos];
         }
 
         /**
@@ -52,25 +72,82 @@
          * @return true, jeśli gracz wygrał, false w przeciwnym razie
          */
         public boolean isWin(byte player) {
-            int[][] lines = Constants.WIN_LINES;
-            for (int i = 0; i < lines.length; i++) {
-                int a = lines[i][0], b = lines[i][1], c = lines[i][2];
-                if (fields[a] == player && fields[b] == player && fields[c] == player) {
+            int mask = masks[player];
+            int[] winMasks = Constants.WIN_MASKS;
+            for (int i = 0; i < winMasks.length; i++) {
+                if ((mask & winMasks[i]) == winMasks[i]) {
                     return true;
                 }
             }
             return false;
         }
 
+        /**
+         * Zwraca pole, którego zajęcie daje graczowi natychmiastową wygraną.
+         * @param player numer gracza (1 = X, 2 = O)
+         * @return indeks pola (0-8) lub -1, jeśli gracz nie może wygrać jednym ruchem
+         */
+        public int findWinningMove(byte player) {
+            return findWinningMove(masks[player], getEmptyMask());
+        }
+
+        /**
+         * Zwraca pole, którego zajęcie domyka linię gracza – wersja na maskach bitowych.
+         * @param playerMask maska pól gracza
+         * @param emptyMask maska pustych pól
+         * @return indeks pola (0-8) lub -1, jeśli gracz nie może wygrać jednym ruchem
+         */
+        public static int findWinningMove(int playerMask, int emptyMask) {
+            int[] winMasks = Constants.WIN_MASKS;
+            for (int i = 0; i < winMasks.length; i++) {
+                int missing = winMasks[i] & ~playerMask;
+                if (Integer.bitCount(missing) == 1 && (missing & emptyMask) != 0) {
+                    return Integer.numberOfTrailingZeros(missing);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Zwraca maskę pól tablicy o podanej wartości (0 – puste pola, 1 – pola X, 2 – pola O).
+         * @param fields tablica pól planszy
+         * @param value wartość pola
+         * @return maska, w której bit i jest ustawiony, jeśli fields[i] == value
+         */
+        public static int maskOf(byte[] fields, byte value) {
+            int mask = 0;
+            for (int i = 0; i < N; i++) {
+                if (fields[i] == value) {
+                    mask |= 1 << i;
+                }
+            }
+            return mask;
+        }
+
+        /**
+         * Zwraca gracza, który ma ruch (X zaczyna, więc przy równej liczbie symboli ruch ma X).
+         * @return 1 = X lub 2 = O
+         */
+        public byte playerToMove() {
+            return Integer.bitCount(masks[1]) == Integer.bitCount(masks[2]) ? (byte) 1 : (byte) 2;
+        }
+
+        /**
+         * Czyści planszę (wszystkie pola puste), aby można ją było użyć ponownie.
+         */
+        public void clear() {
+            Arrays.fill(fields, (byte) 0);
+            masks[1] = 0;
+            masks[2] = 0;
+            stateIndex = 0;
+        }
+
         /**
          * Sprawdza, czy plansza jest pełna (brak pustych pól).
          * @return true, jeśli plansza jest pełna, false w przeciwnym razie
          */
         public boolean isFull() {
-            for (int i = 0; i < N; i++) {
-                if (fields[i] == 0) return false;
-            }
-            return true;
+            return (masks[1] | masks[2]) == FULL_MASK;
         }
 
         /**
@@ -78,11 +155,7 @@
          * @return liczba pustych pól
          */
         public int countEmpty() {
-            int counter = 0;
-            for (int i = 0; i < N; i++) {
-                if (fields[i] == 0) counter++;
-            }
-            return counter;
+            return N - Integer.bitCount(masks[1] | masks[2]);
         }
 
         /**
@@ -92,24 +165,35 @@
          */
         public int getEmptyPositions(int[] out) {
             int idx = 0;
-            for (int i = 0; i < N; i++) {
-                if (fields[i] == 0) {
-                    out[idx++] = i;
-                }
+            for (int empty = getEmptyMask(); empty != 0; empty &= empty - 1) {
+                out[idx++] = Integer.numberOfTrailingZeros(empty);
             }
             return idx;
         }
 
+        /**
+         * Zwraca maskę bitową pustych pól.
+         * @return maska, w której bit i jest ustawiony, jeśli pole i jest puste
+         */
+        public int getEmptyMask() {
+            return ~(masks[1] | masks[2]) & FULL_MASK;
+        }
+
+        /**
+         * Zwraca maskę bitową pól zajętych przez gracza.
+         * @param player numer gracza (1 = X, 2 = O)
+         * @return maska, w której bit i jest ustawiony, jeśli pole i należy do gracza
+         */
+        public int getMask(byte player) {
+            return masks[player];
+        }
+
         /**
          * Oblicza indeks stanu planszy jako liczbę w systemie trójkowym.
          * @return unikalny indeks stanu planszy (0..19682)
          */
         public int getStateIndex() {
-            int index = 0;
-            for (int i = 0; i < N; i++) {
-                index += fields[i] * Constants.POW3[i];
-            }
-            return index;
+            return stateIndex;
         }
 
         /**
@@ -120,11 +204,15 @@
         public Board clone() {
             Board copy = new Board();
             System.arraycopy(this.fields, 0, copy.fields, 0, N);
+            copy.masks[1] = this.masks[1];
+            copy.masks[2] = this.masks[2];
+            copy.stateIndex = this.stateIndex;
             return copy;
         }
 
         /**
-         * Zwraca referencję do wewnętrznej tablicy pól (do odczytu).
+         * Zwraca referencję do wewnętrznej tablicy pól (tylko do odczytu – zmiany
+         * z zewnątrz nie aktualizują masek ani indeksu stanu).
          * @return tablica pól planszy
          */
         public byte[] getFields() {
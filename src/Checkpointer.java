@@ -0,0 +1,357 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Przyrostowe punkty kontrolne treningu zapisywane w tle.
+ * <p>
+ * Katalog punktów kontrolnych zawiera pełną tablicę Q {@code base-N.qtf} (format {@link QTableFile})
+ * oraz dziennik zmian {@code delta-N.log}. Każdy punkt kontrolny dopisuje do dziennika rekord
+ * ze stanem treningu (epizod, epsilon, ziarno generatora losowego) i tylko tymi wierszami tablicy Q,
+ * które zmieniły się od poprzedniego punktu. Co {@code compactEvery} rekordów dziennik jest
+ * kompaktowany: powstaje nowa para plików o numerze N+1, a starsze pliki są usuwane.
+ * <p>
+ * Wątek treningu jedynie kopiuje zmienione wiersze (śledzone przez agenta w mapie bitowej);
+ * zapis na dysk, fsync i kompaktowanie wykonuje osobny wątek. Jeśli poprzedni zapis jeszcze trwa,
+ * punkt kontrolny jest pomijany, a zmienione wiersze trafią do następnego.
+ */
+public class Checkpointer implements Closeable {
+    /** Sygnatura rekordu dziennika: bajty "TDCK" */
+    private static final int RECORD_MAGIC = 0x4B434454;
+    /** Rozmiar stałej części rekordu: sygnatura, epizod, epsilon, ziarno, liczba wierszy */
+    private static final int RECORD_HEADER_SIZE = 32;
+
+    /**
+     * Stan treningu zapisany w punkcie kontrolnym.
+     * @param episode numer ostatniego rozegranego epizodu
+     * @param epsilon epsilon agenta po tym epizodzie
+     * @param seed ziarno, którym wątek treningu zainicjował generatory losowe w chwili zapisu
+     */
+    public record State(long episode, double epsilon, long seed) {
+    }
+
+    private final Path directory;
+    private final QLearningAgent agent;
+    private final QTable table;
+    private final int numActions;
+    /** Liczba rekordów dziennika, po której następuje kompaktowanie */
+    private final int compactEvery;
+    /** Wiersze zmienione od ostatniego punktu kontrolnego (zapisywane przez agenta) */
+    private final long[] dirtyRows;
+
+    /** Jednowątkowy wykonawca zapisów w tle */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    /** Ostatni zlecony zapis (lub null) */
+    private Future<?> pending;
+    /** Czy wystąpił błąd zapisu (kolejne punkty kontrolne są wtedy pomijane) */
+    private boolean failed;
+
+    /** Kopia tablicy Q odpowiadająca zawartości plików (tylko wątek zapisu) */
+    private final DoubleArrayQTable shadow;
+    /** Otwarty dziennik zmian (tylko wątek zapisu) */
+    private FileChannel deltaLog;
+    /** Numer bieżącej pary plików (tylko wątek zapisu) */
+    private long sequence;
+    /** Liczba rekordów w bieżącym dzienniku (tylko wątek zapisu) */
+    private int records;
+
+    /**
+     * Tworzy obiekt zapisujący punkty kontrolne agenta do katalogu (tworzonego w razie potrzeby).
+     * Zapis rozpoczyna się po wywołaniu {@link #start}.
+     * @param directory katalog punktów kontrolnych
+     * @param agent trenowany agent (aktualizowany z jednego wątku)
+     * @param compactEvery liczba rekordów dziennika, po której następuje kompaktowanie
+     * @throws IOException jeśli nie można utworzyć katalogu
+     */
+    public Checkpointer(String directory, QLearningAgent agent, int compactEvery) throws IOException {
+        if (compactEvery < 1) {
+            throw new IllegalArgumentException("Okres kompaktowania musi być dodatni: " + compactEvery);
+        }
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.agent = agent;
+        this.table = agent.getQTable();
+        this.numActions = table.numActions();
+        this.compactEvery = compactEvery;
+        this.dirtyRows = new long[(table.numStates() + 63) >>> 6];
+        this.shadow = new DoubleArrayQTable(table.numStates(), numActions);
+    }
+
+    /**
+     * Zapisuje pełny punkt kontrolny z bieżącą tablicą Q (synchronicznie) i włącza śledzenie
+     * zmienionych wierszy. Starsze punkty kontrolne w katalogu są usuwane.
+     * @param state stan treningu
+     * @throws IOException w przypadku błędu zapisu
+     */
+    public void start(State state) throws IOException {
+        shadow.copyFrom(table);
+        sequence = latestSequence(directory);
+        compact(state);
+        agent.setDirtyRows(dirtyRows);
+    }
+
+    /**
+     * Zleca zapis punktu kontrolnego: kopiuje zmienione wiersze i przekazuje je wątkowi zapisu.
+     * Nie czeka na zapis; jeśli poprzedni zapis jeszcze trwa, nic nie robi.
+     * @param state stan treningu
+     * @return true, jeśli punkt kontrolny został zlecony
+     */
+    public boolean checkpoint(State state) {
+        if (pending != null && !pending.isDone()) {
+            return false;
+        }
+        if (!checkPending()) {
+            return false;
+        }
+        int count = 0;
+        for (long word : dirtyRows) {
+            count += Long.bitCount(word);
+        }
+        int[] rows = new int[count];
+        double[] values = new double[count * numActions];
+        int n = 0;
+        for (int w = 0; w < dirtyRows.length; w++) {
+            for (long word = dirtyRows[w]; word != 0; word &= word - 1) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                for (int a = 0; a < numActions; a++) {
+                    values[n * numActions + a] = table.get(row, a);
+                }
+                rows[n++] = row;
+            }
+            dirtyRows[w] = 0;
+        }
+        pending = writer.submit(() -> {
+            append(state, rows, values);
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Zapisuje punkt kontrolny i czeka na zakończenie zapisu (np. na końcu treningu).
+     * @param state stan treningu
+     * @return true, jeśli zapis się powiódł
+     */
+    public boolean sync(State state) {
+        if (!checkPending()) {
+            return false;
+        }
+        checkpoint(state);
+        return checkPending();
+    }
+
+    /**
+     * Czeka na zakończenie ostatniego zleconego zapisu i sprawdza jego wynik.
+     * @return false, jeśli zapis (ten lub wcześniejszy) się nie powiódł
+     */
+    private boolean checkPending() {
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed = true;
+            } catch (ExecutionException e) {
+                System.err.println("Błąd zapisu punktu kontrolnego, dalsze punkty nie będą zapisywane: "
+                        + e.getCause().getMessage());
+                failed = true;
+            }
+            pending = null;
+        }
+        return !failed;
+    }
+
+    /**
+     * Dopisuje rekord do dziennika (wątek zapisu) i w razie potrzeby kompaktuje pliki.
+     */
+    private void append(State state, int[] rows, double[] values) throws IOException {
+        ByteBuffer record = encode(state, rows, values);
+        while (record.hasRemaining()) deltaLog.write(record);
+        deltaLog.force(false);
+        for (int i = 0; i < rows.length; i++) {
+            for (int a = 0; a < numActions; a++) {
+                shadow.set(rows[i], a, values[i * numActions + a]);
+            }
+        }
+        if (++records >= compactEvery) {
+            compact(state);
+        }
+    }
+
+    /**
+     * Zapisuje nową parę plików: dziennik z samym stanem treningu, a potem pełną tablicę Q.
+     * Oba pliki powstają pod nazwą tymczasową i są atomowo przemianowywane, a dziennik
+     * powstaje przed tablicą – istnienie {@code base-N.qtf} gwarantuje więc kompletny {@code delta-N.log}.
+     */
+    private void compact(State state) throws IOException {
+        long next = sequence + 1;
+        Path delta = deltaPath(directory, next);
+        Path deltaTmp = delta.resolveSibling(delta.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(deltaTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer record = encode(state, new int[0], new double[0]);
+            while (record.hasRemaining()) channel.write(record);
+            channel.force(true);
+        }
+        Files.move(deltaTmp, delta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        Path base = basePath(directory, next);
+        Path baseTmp = base.resolveSibling(base.getFileName() + ".tmp");
+        QTableFile.write(baseTmp.toString(), shadow, agent.isSymmetric(), agent.getAlpha(), agent.getGamma(),
+                state.epsilon(), QTableFile.ValueType.FLOAT64);
+        Files.move(baseTmp, base, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        if (deltaLog != null) {
+            deltaLog.close();
+        }
+        deltaLog = FileChannel.open(delta, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sequence = next;
+        records = 0;
+        for (long old = sequence - 1; old >= 0 && Files.deleteIfExists(basePath(directory, old)); old--) {
+            Files.deleteIfExists(deltaPath(directory, old));
+        }
+    }
+
+    /**
+     * Koduje rekord dziennika (little-endian): sygnatura, epizod, epsilon, ziarno, liczba wierszy,
+     * wiersze (indeks i numActions wartości double), na końcu CRC32 całości.
+     */
+    private ByteBuffer encode(State state, int[] rows, double[] values) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_SIZE + rows.length * (4 + 8 * numActions) + 8)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(RECORD_MAGIC)
+                .putLong(state.episode())
+                .putDouble(state.epsilon())
+                .putLong(state.seed())
+                .putInt(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            buf.putInt(rows[i]);
+            for (int a = 0; a < numActions; a++) {
+                buf.putDouble(values[i * numActions + a]);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putLong(crc.getValue());
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Odtwarza tablicę Q i epsilon agenta z najnowszego punktu kontrolnego w katalogu:
+     * wczytuje pełną tablicę i nakłada kolejne rekordy dziennika. Niekompletny ostatni rekord
+     * (przerwany zapis) jest pomijany.
+     * @param directory katalog punktów kontrolnych
+     * @param agent agent o tym samym trybie symetrii co zapisany
+     * @return stan treningu z ostatniego kompletnego rekordu lub null, jeśli w katalogu nie ma punktu kontrolnego
+     * @throws IOException w przypadku błędu odczytu lub niezgodnego pliku
+     */
+    public static State restore(String directory, QLearningAgent agent) throws IOException {
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        long sequence = latestSequence(dir);
+        if (sequence < 0) {
+            return null;
+        }
+        String base = basePath(dir, sequence).toString();
+        if (QTableFile.readHeader(base).symmetric() != agent.isSymmetric()) {
+            throw new IOException("Niezgodny tryb symetrii punktu kontrolnego");
+        }
+        QTable table = agent.getQTable();
+        QTableFile.read(base, table);
+        int numActions = table.numActions();
+
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(deltaPath(dir, sequence))).order(ByteOrder.LITTLE_ENDIAN);
+        State state = null;
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= RECORD_HEADER_SIZE) {
+            int start = log.position();
+            if (log.getInt(start) != RECORD_MAGIC) {
+                break;
+            }
+            int rows = log.getInt(start + RECORD_HEADER_SIZE - 4);
+            int size = RECORD_HEADER_SIZE + rows * (4 + 8 * numActions);
+            if (rows < 0 || log.remaining() < size + 8) {
+                break;
+            }
+            crc.reset();
+            crc.update(log.array(), start, size);
+            if (log.getLong(start + size) != crc.getValue()) {
+                break;
+            }
+            log.position(start + 4);
+            State recordState = new State(log.getLong(), log.getDouble(), log.getLong());
+            log.getInt();
+            for (int i = 0; i < rows; i++) {
+                int row = log.getInt();
+                for (int a = 0; a < numActions; a++) {
+                    table.set(row, a, log.getDouble());
+                }
+            }
+            log.getLong();
+            state = recordState;
+        }
+        if (state == null) {
+            throw new IOException("Dziennik punktu kontrolnego nie zawiera stanu treningu");
+        }
+        agent.setEpsilon(state.epsilon());
+        return state;
+    }
+
+    /**
+     * Zwraca numer najnowszej pełnej tablicy {@code base-N.qtf} w katalogu lub -1, jeśli jej nie ma.
+     */
+    private static long latestSequence(Path dir) throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "base-*.qtf")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    latest = Math.max(latest, Long.parseLong(name.substring(5, name.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // obcy plik pasujący do wzorca – pomijamy
+                }
+            }
+        }
+        return latest;
+    }
+
+    private static Path basePath(Path dir, long sequence) {
+        return dir.resolve("base-" + sequence + ".qtf");
+    }
+
+    private static Path deltaPath(Path dir, long sequence) {
+        return dir.resolve("delta-" + sequence + ".log");
+    }
+
+    /**
+     * Czeka na zakończenie zapisów, zamyka dziennik i wyłącza śledzenie zmian agenta.
+     * @throws IOException w przypadku błędu zamknięcia dziennika
+     */
+    @Override
+    public void close() throws IOException {
+        checkPending();
+        agent.setDirtyRows(null);
+        writer.shutdown();
+        if (deltaLog != null) {
+            deltaLog.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Skompilowana strategia do serwowania ruchów: tablica {@code byte[19683]} z ruchem zachłannym agenta
+ * dla każdego osiągalnego, niekońcowego stanu (-1 dla pozostałych). Wybór ruchu to jeden odczyt tablicy,
+ * bez wartości Q, symetrii ani przeglądania pustych pól.
+ * <p>
+ * Układ pliku (little-endian): 16-bajtowy nagłówek, a za nim ruchy stan po stanie:
+ * <pre>
+ *  0  magic "TTTP"          4  wersja             8  liczba stanów      12  CRC32 ruchów
+ * </pre>
+ */
+public final class CompiledPolicy implements MovePolicy {
+    /** Sygnatura pliku: bajty "TTTP" */
+    public static final int MAGIC = 0x50545454;
+    /** Bieżąca wersja formatu */
+    public static final int VERSION = 1;
+    /** Rozmiar nagłówka w bajtach */
+    public static final int HEADER_SIZE = 16;
+
+    /** Ruch dla każdego stanu (-1 dla stanów końcowych i nieosiągalnych) */
+    private final byte[] moves;
+
+    private CompiledPolicy(byte[] moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * Kompiluje strategię zachłanną agenta (bez eksploracji) dla wszystkich osiągalnych, niekońcowych stanów.
+     * @param agent wytrenowany agent
+     * @return skompilowana strategia
+     */
+    public static CompiledPolicy compile(QLearningAgent agent) {
+        byte[] moves = new byte[Transitions.NUM_STATES];
+        for (int s = 0; s < moves.length; s++) {
+            moves[s] = playable(s) ? (byte) agent.greedyAction(s, Transitions.emptyMask(s)) : -1;
+        }
+        return new CompiledPolicy(moves);
+    }
+
+    /**
+     * Sprawdza, czy stan jest osiągalny w grze i niekońcowy.
+     */
+    private static boolean playable(int stateIndex) {
+        return Symmetry.compactIndex(stateIndex) >= 0 && Transitions.status(stateIndex) == Transitions.IN_PLAY;
+    }
+
+    /**
+     * Wybiera ruch z tablicy. Dla stanu spoza tablicy (końcowego lub nieosiągalnego) zwraca pierwsze
+     * puste pole.
+     * @param boardIndex indeks stanu planszy (Board.getStateIndex())
+     * @param fields tablica pól planszy
+     * @return indeks wybranego pola (0-8)
+     */
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        int move = moves[boardIndex];
+        return (move >= 0) ? move : Integer.numberOfTrailingZeros(Transitions.emptyMask(boardIndex));
+    }
+
+    /**
+     * Porównuje strategię z ruchami zachłannymi agenta we wszystkich osiągalnych, niekońcowych stanach.
+     * @param agent agent, z którego strategia powstała
+     * @return liczba stanów, w których ruchy się różnią (0 = pełna zgodność)
+     */
+    public int verify(QLearningAgent agent) {
+        int mismatches = 0;
+        for (int s = 0; s < moves.length; s++) {
+            if (playable(s) && moves[s] != agent.greedyAction(s, Transitions.emptyMask(s))) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Zwraca liczbę stanów z zapisanym ruchem.
+     * @return liczba osiągalnych, niekońcowych stanów
+     */
+    public int size() {
+        int count = 0;
+        for (byte move : moves) {
+            if (move >= 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Zapisuje strategię do pliku.
+     * @param filename ścieżka do pliku
+     * @throws IOException w przypadku błędu zapisu
+     */
+    public void save(String filename) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(moves);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + moves.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(moves.length)
+                .putInt((int) crc.getValue())
+                .put(moves);
+        buf.flip();
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+    }
+
+    /**
+     * Wczytuje strategię z pliku, sprawdzając nagłówek, sumę kontrolną i to, że każdy ruch trafia
+     * w puste pole. Wczytanie nie wymaga tablic przejść ani symetrii.
+     * @param filename ścieżka do pliku
+     * @return strategia
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego pliku
+     */
+    public static CompiledPolicy load(String filename) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(Path.of(filename))).order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC) {
+            throw new IOException("Niepoprawna sygnatura pliku strategii");
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Nieobsługiwana wersja pliku strategii: " + version);
+        }
+        int numStates = buf.getInt();
+        int checksum = buf.getInt();
+        if (numStates != Transitions.NUM_STATES || buf.remaining() != numStates) {
+            throw new IOException("Rozmiar pliku strategii nie zgadza się z nagłówkiem");
+        }
+        byte[] moves = new byte[numStates];
+        buf.get(moves);
+        CRC32 crc = new CRC32();
+        crc.update(moves);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Niezgodna suma kontrolna pliku strategii");
+        }
+        for (int s = 0; s < numStates; s++) {
+            if (moves[s] >= 9 || (moves[s] >= 0 && s / Constants.POW3[moves[s]] % 3 != 0)) {
+                throw new IOException("Niedozwolony ruch " + moves[s] + " w stanie " + s);
+            }
+        }
+        return new CompiledPolicy(moves);
+    }
+}
@@ -7,6 +7,21 @@ public class Constants {
             {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, // kolumny
             {0, 4, 8}, {2, 4, 6}             // przekątne
     };
+    // Maski bitowe linii zwycięstwa (bit i = pole i), wyliczane z WIN_LINES
+    public static final int[] WIN_MASKS = new int[WIN_LINES.length];
+    // Osiem symetrii planszy (obroty i odbicia): SYMMETRIES[t][i] = pole, na które przechodzi pole i
+    public static final int[][] SYMMETRIES = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8}, // tożsamość
+            {2, 5, 8, 1, 4, 7, 0, 3, 6}, // obrót o 90°
+            {8, 7, 6, 5, 4, 3, 2, 1, 0}, // obrót o 180°
+            {6, 3, 0, 7, 4, 1, 8, 5, 2}, // obrót o 270°
+            {2, 1, 0, 5, 4, 3, 8, 7, 6}, // odbicie poziome
+            {6, 7, 8, 3, 4, 5, 0, 1, 2}, // odbicie pionowe
+            {0, 3, 6, 1, 4, 7, 2, 5, 8}, // odbicie względem przekątnej
+            {8, 5, 2, 7, 4, 1, 6, 3, 0}  // odbicie względem antyprzekątnej
+    };
+    // Permutacje odwrotne: SYMMETRY_INVERSE[t][SYMMETRIES[t][i]] = i
+    public static final int[][] SYMMETRY_INVERSE = new int[8][9];
 
     static {
         // Wypełniamy tablicę potęg 3
@@ -15,5 +30,15 @@ public class Constants {
             POW3[i] = val;
             val *= 3;
         }
+        // Budujemy maski linii zwycięstwa
+        for (int i = 0; i < WIN_LINES.length; i++) {
+            WIN_MASKS[i] = (1 << WIN_LINES[i][0]) | (1 << WIN_LINES[i][1]) | (1 << WIN_LINES[i][2]);
+        }
+        // Odwracamy permutacje symetrii
+        for (int t = 0; t < SYMMETRIES.length; t++) {
+            for (int i = 0; i < 9; i++) {
+                SYMMETRY_INVERSE[t][SYMMETRIES[t][i]] = i;
+            }
+        }
     }
 }
@@ -0,0 +1,213 @@
+import java.util.Arrays;
+
+/**
+ * Wykrywanie zbieżności treningu (wczesne zatrzymanie). Agent zgłasza każdą aktualizację tablicy Q
+ * ({@link #recordUpdate}): monitor zaznacza stan w mapie bitowej zmienionych stanów i śledzi największą
+ * zmianę |ΔQ|. Co {@link #window()} epizodów trener wywołuje {@link #check}, które wyznacza ruch zachłanny
+ * tylko dla stanów zmienionych od poprzedniego sprawdzenia i porównuje go z zapamiętaną strategią –
+ * bez przeglądania całej tablicy 19 683 × 9. W trybie symetrycznym agent zgłasza postać kanoniczną stanu,
+ * więc każda klasa symetrii (wspólny wiersz tablicy) jest śledzona i liczona dokładnie raz.
+ * <p>
+ * Przy stałym współczynniku uczenia i losowych przeciwnikach wartości Q nigdy nie przestają się zmieniać,
+ * a ruchy o prawie równych wartościach zamieniają się miejscami, dlatego zapamiętany ruch zmienia się
+ * dopiero wtedy, gdy inny ruch przewyższa go o {@value #Q_TOLERANCE}. Trening kończy się, gdy odsetek
+ * stanów ze zmienionym ruchem nie przekracza {@code maxChangeRate} przez {@code patience} kolejnych okien
+ * albo – jeśli włączono ocenę ({@link #setEvaluation}) – gdy wynik strategii zachłannej przeciwko
+ * losowemu przeciwnikowi nie poprawił się przez {@code patience} kolejnych ocen.
+ */
+public class ConvergenceMonitor {
+    /** Przyczyna zatrzymania treningu */
+    public enum Reason {
+        /** Strategia zachłanna nie zmienia się */
+        POLICY_STABLE,
+        /** Wynik oceny przestał rosnąć */
+        WIN_RATE_PLATEAU
+    }
+
+    /** O ile wartość Q nowego ruchu zachłannego musi przewyższać zapamiętany ruch, by uznać zmianę strategii */
+    private static final double Q_TOLERANCE = 0.05;
+    /** Ziarno partii oceniających – te same partie przy każdej ocenie */
+    private static final long EVALUATION_SEED = 1;
+
+    private final QLearningAgent agent;
+    /** Liczba epizodów między sprawdzeniami */
+    private final int window;
+    /** Liczba kolejnych okien stabilnych (lub bez poprawy wyniku) potrzebna do zatrzymania */
+    private final int patience;
+    /** Największy odsetek śledzonych stanów ze zmienionym ruchem, przy którym okno jest stabilne */
+    private final double maxChangeRate;
+
+    /** Zapamiętany ruch zachłanny każdego stanu (-1 = stan jeszcze nieaktualizowany) */
+    private final byte[] policy = new byte[Transitions.NUM_STATES];
+    /** Liczba stanów z zapamiętanym ruchem */
+    private int tracked;
+    /** Mapa bitowa stanów zaktualizowanych od ostatniego sprawdzenia */
+    private final long[] dirtyStates = new long[(Transitions.NUM_STATES + 63) >>> 6];
+    /** Największa zmiana |ΔQ| od ostatniego sprawdzenia */
+    private double maxDelta;
+
+    /** Liczba partii oceniających (0 = bez oceny) */
+    private int evaluationGames;
+    /** Najmniejsza poprawa wyniku oceny uznawana za postęp */
+    private double minImprovement;
+    private PolicyEvaluator evaluator;
+
+    private int stableWindows;
+    private int plateauWindows;
+    private double bestScore = Double.NEGATIVE_INFINITY;
+    private int lastChanges;
+    private double lastMaxDelta;
+    private double lastScore = Double.NaN;
+    private Reason reason;
+    private long stoppedAt;
+
+    /**
+     * Tworzy monitor zbieżności (bez oceny partiami).
+     * @param agent trenowany agent
+     * @param window liczba epizodów między sprawdzeniami
+     * @param patience liczba kolejnych stabilnych okien potrzebna do zatrzymania
+     * @param maxChangeRate największy odsetek śledzonych stanów ze zmienionym ruchem w stabilnym oknie (0 = żadnej zmiany)
+     */
+    public ConvergenceMonitor(QLearningAgent agent, int window, int patience, double maxChangeRate) {
+        if (window < 1 || patience < 1 || maxChangeRate < 0) {
+            throw new IllegalArgumentException("Niepoprawne okno zbieżności: " + window + " × " + patience);
+        }
+        this.agent = agent;
+        this.window = window;
+        this.patience = patience;
+        this.maxChangeRate = maxChangeRate;
+        Arrays.fill(policy, (byte) -1);
+    }
+
+    /**
+     * Włącza ocenę przy każdym sprawdzeniu: strategia zachłanna gra podaną liczbę partii z losowym
+     * przeciwnikiem (zawsze te same ziarna), a wynikiem jest (wygrane + remisy / 2) / partie.
+     * @param games liczba partii oceniających (0 = bez oceny)
+     * @param minImprovement najmniejsza poprawa najlepszego wyniku uznawana za postęp
+     */
+    public void setEvaluation(int games, double minImprovement) {
+        this.evaluationGames = games;
+        this.minImprovement = minImprovement;
+        this.evaluator = (games > 0) ? new PolicyEvaluator() : null;
+    }
+
+    /**
+     * Zwraca liczbę epizodów między sprawdzeniami.
+     * @return długość okna
+     */
+    public int window() {
+        return window;
+    }
+
+    /**
+     * Zapisuje aktualizację tablicy Q (wywoływane przez agenta).
+     * @param stateIndex indeks zaktualizowanego stanu (w trybie symetrycznym – jego postać kanoniczna)
+     * @param delta zmiana wartości Q
+     */
+    void recordUpdate(int stateIndex, double delta) {
+        dirtyStates[stateIndex >>> 6] |= 1L << stateIndex;
+        double abs = Math.abs(delta);
+        if (abs > maxDelta) {
+            maxDelta = abs;
+        }
+    }
+
+    /**
+     * Porównuje strategię zachłanną w stanach zmienionych od ostatniego sprawdzenia z zapamiętaną
+     * i sprawdza warunki zatrzymania.
+     * @param episode numer bieżącego epizodu
+     * @return true, jeśli trening należy zakończyć
+     */
+    public boolean check(long episode) {
+        int changes = 0;
+        for (int w = 0; w < dirtyStates.length; w++) {
+            for (long word = dirtyStates[w]; word != 0; word &= word - 1) {
+                int state = (w << 6) + Long.numberOfTrailingZeros(word);
+                int empty = Transitions.emptyMask(state);
+                if (empty == 0) {
+                    continue;
+                }
+                int action = agent.greedyAction(state, empty);
+                int previous = policy[state];
+                if (previous < 0) {
+                    policy[state] = (byte) action;
+                    tracked++;
+                    changes++;
+                } else if (action != previous && agent.getQ(state, action) - agent.getQ(state, previous) > Q_TOLERANCE) {
+                    policy[state] = (byte) action;
+                    changes++;
+                }
+            }
+            dirtyStates[w] = 0;
+        }
+        lastChanges = changes;
+        lastMaxDelta = maxDelta;
+        maxDelta = 0.0;
+
+        stableWindows = (changes <= maxChangeRate * tracked) ? stableWindows + 1 : 0;
+        if (stableWindows >= patience) {
+            return stop(Reason.POLICY_STABLE, episode);
+        }
+        if (evaluator != null) {
+            PolicyEvaluator.Result result = evaluator.tournament(PolicyEvaluator.greedy(agent),
+                    PolicyEvaluator.random(), evaluationGames, EVALUATION_SEED);
+            lastScore = (result.wins() + 0.5 * result.draws()) / result.games();
+            if (lastScore > bestScore + minImprovement) {
+                bestScore = lastScore;
+                plateauWindows = 0;
+            } else if (++plateauWindows >= patience) {
+                return stop(Reason.WIN_RATE_PLATEAU, episode);
+            }
+        }
+        return false;
+    }
+
+    private boolean stop(Reason reason, long episode) {
+        this.reason = reason;
+        this.stoppedAt = episode;
+        if (evaluator != null) {
+            evaluator.shutdown();
+        }
+        return true;
+    }
+
+    /**
+     * Zwraca liczbę stanów, w których ostatnie sprawdzenie wykryło zmianę ruchu zachłannego.
+     * @return liczba zmian strategii
+     */
+    public int lastPolicyChanges() {
+        return lastChanges;
+    }
+
+    /**
+     * Zwraca największą zmianę |ΔQ| w ostatnim oknie.
+     * @return maksimum |ΔQ|
+     */
+    public double lastMaxDelta() {
+        return lastMaxDelta;
+    }
+
+    /**
+     * Zwraca wynik ostatniej oceny (NaN bez oceny).
+     * @return (wygrane + remisy / 2) / partie
+     */
+    public double lastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Zwraca przyczynę zatrzymania.
+     * @return przyczyna lub null, jeśli trening nie został zatrzymany
+     */
+    public Reason reason() {
+        return reason;
+    }
+
+    /**
+     * Zwraca numer epizodu, po którym trening został zatrzymany.
+     * @return numer epizodu (0, jeśli trening nie został zatrzymany)
+     */
+    public long stoppedAt() {
+        return stoppedAt;
+    }
+}
@@ -0,0 +1,43 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Zapisuje migawki metryk treningu do pliku CSV (jeden wiersz na okno epizodów).
+ */
+public class CsvMetricsSink implements MetricsSink {
+    private final BufferedWriter out;
+
+    /**
+     * Tworzy plik CSV i zapisuje wiersz nagłówka.
+     * @param filename ścieżka do pliku (nadpisywanego)
+     * @throws IOException w przypadku błędu otwarcia pliku
+     */
+    public CsvMetricsSink(String filename) throws IOException {
+        out = new BufferedWriter(new FileWriter(filename));
+        out.write("episodes,window,win_rate,loss_rate,draw_rate,mean_td_error,states_visited,episodes_per_s,epsilon");
+        for (int i = 0; i < TrainingMetrics.TD_BUCKETS; i++) {
+            out.write(",td_hist_" + i);
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    @Override
+    public void write(TrainingMetrics.Snapshot s) throws IOException {
+        out.write(String.format(Locale.ROOT, "%d,%d,%.5f,%.5f,%.5f,%.6g,%d,%.0f,%.6f",
+                s.episodes(), s.windowEpisodes(), s.winRate(), s.lossRate(), s.drawRate(),
+                s.meanTdError(), s.statesVisited(), s.episodesPerSecond(), s.epsilon()));
+        for (long count : s.tdErrorHistogram()) {
+            out.write("," + count);
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
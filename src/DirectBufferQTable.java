@@ -0,0 +1,58 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Tablica Q przechowywana poza stertą, w buforze {@link ByteBuffer#allocateDirect(int)}.
+ * Nie obciąża GC – przydatne, gdy w jednej JVM działa wiele agentów.
+ */
+public class DirectBufferQTable implements QTable {
+    private final int numStates;
+    private final int numActions;
+    /** Widok bufora jako tablica double: [state * numActions + action] */
+    private final DoubleBuffer values;
+
+    /**
+     * Tworzy wyzerowaną tablicę Q poza stertą.
+     * @param numStates liczba stanów
+     * @param numActions liczba akcji
+     */
+    public DirectBufferQTable(int numStates, int numActions) {
+        this.numStates = numStates;
+        this.numActions = numActions;
+        this.values = ByteBuffer.allocateDirect(numStates * numActions * Double.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+    }
+
+    @Override
+    public int numStates() {
+        return numStates;
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public double get(int state, int action) {
+        return values.get(state * numActions + action);
+    }
+
+    @Override
+    public void set(int state, int action, double value) {
+        values.put(state * numActions + action, value);
+    }
+
+    @Override
+    public double max(int state) {
+        int base = state * numActions;
+        double best = values.get(base);
+        for (int i = base + 1, end = base + numActions; i < end; i++) {
+            double v = values.get(i);
+            if (v > best) best = v;
+        }
+        return best;
+    }
+}
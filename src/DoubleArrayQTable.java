@@ -0,0 +1,80 @@
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Tablica Q przechowywana w jednej płaskiej tablicy {@code double[]}.
+ * Jeden obiekt na stercie zamiast 19683 osobnych wierszy.
+ */
+public class DoubleArrayQTable implements QTable, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int numStates;
+    private final int numActions;
+    /** Wartości Q: values[state * numActions + action] */
+    private final double[] values;
+
+    /**
+     * Tworzy wyzerowaną tablicę Q.
+     * @param numStates liczba stanów
+     * @param numActions liczba akcji
+     */
+    public DoubleArrayQTable(int numStates, int numActions) {
+        this.numStates = numStates;
+        this.numActions = numActions;
+        this.values = new double[numStates * numActions];
+    }
+
+    @Override
+    public int numStates() {
+        return numStates;
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public double get(int state, int action) {
+        return values[state * numActions + action];
+    }
+
+    @Override
+    public void set(int state, int action, double value) {
+        values[state * numActions + action] = value;
+    }
+
+    @Override
+    public double max(int state) {
+        int base = state * numActions;
+        double best = values[base];
+        for (int i = base + 1, end = base + numActions; i < end; i++) {
+            double v = values[i];
+            if (v > best) best = v;
+        }
+        return best;
+    }
+
+    @Override
+    public void bestActions(int[] states, int[] actionMasks, int[] outActions, double[] outMaxQ, int count) {
+        for (int i = 0; i < count; i++) {
+            int base = states[i] * numActions;
+            int mask = actionMasks[i];
+            int best = -1;
+            double bestQ = Double.NEGATIVE_INFINITY;
+            for (; mask != 0; mask &= mask - 1) {
+                int a = Integer.numberOfTrailingZeros(mask);
+                double q = values[base + a];
+                if (best < 0 || q > bestQ) {
+                    bestQ = q;
+                    best = a;
+                }
+            }
+            outActions[i] = best;
+            if (outMaxQ != null) {
+                outMaxQ[i] = bestQ;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Ślad epizodu do aktualizacji zwrotami wielokrokowymi: przejścia agenta z jednej partii (stan, akcja,
+ * nagroda, następny stan, w którym agent ma ruch) są zapisywane w stałych tablicach (w partii 3 × 3
+ * agent wykonuje najwyżej {@value #MAX_MOVES} ruchów), a na końcu epizodu jeden przebieg wstecz
+ * aktualizuje wszystkie ruchy. Nagroda końcowa trafia więc w jednym epizodzie do każdego ruchu partii,
+ * a nie tylko do ostatniego.
+ * <p>
+ * Cel aktualizacji to zwrot n-krokowy G = r + γ r' + ... + γ^n max Q(s_n) albo zwrot λ
+ * G_t = r_t + γ((1 - λ) max Q(s_{t+1}) + λ G_{t+1}) (Q(λ) Penga – bez przycinania śladu po ruchach
+ * eksploracyjnych). Ponieważ ruchy są aktualizowane od końca, maksimum w stanie następnym uwzględnia
+ * już jego aktualizację z tego samego epizodu. Zwrot 1-krokowy i λ = 0 dają zwykłą aktualizację Q-learningu.
+ */
+public class EpisodeTrace {
+    /** Największa liczba ruchów agenta w jednej partii */
+    public static final int MAX_MOVES = 5;
+
+    /** Parametr λ (tylko bez zwrotu n-krokowego) */
+    private final double lambda;
+    /** Liczba kroków zwrotu n-krokowego (0 = zwrot λ) */
+    private final int steps;
+
+    private final int[] states = new int[MAX_MOVES];
+    private final int[] actions = new int[MAX_MOVES];
+    private final double[] rewards = new double[MAX_MOVES];
+    private final int[] nextStates = new int[MAX_MOVES];
+    private int count;
+
+    private EpisodeTrace(double lambda, int steps) {
+        this.lambda = lambda;
+        this.steps = steps;
+    }
+
+    /**
+     * Tworzy ślad aktualizowany zwrotem λ.
+     * @param lambda parametr λ z przedziału [0, 1] (0 = zwrot 1-krokowy, 1 = zwrot do końca partii)
+     * @return ślad epizodu
+     */
+    public static EpisodeTrace lambda(double lambda) {
+        if (lambda < 0.0 || lambda > 1.0) {
+            throw new IllegalArgumentException("Parametr λ spoza przedziału [0, 1]: " + lambda);
+        }
+        return new EpisodeTrace(lambda, 0);
+    }
+
+    /**
+     * Tworzy ślad aktualizowany zwrotem n-krokowym.
+     * @param steps liczba kroków (co najmniej 1)
+     * @return ślad epizodu
+     */
+    public static EpisodeTrace nStep(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Liczba kroków zwrotu musi być dodatnia: " + steps);
+        }
+        return new EpisodeTrace(0.0, steps);
+    }
+
+    /**
+     * Zapisuje przejście agenta.
+     * @param stateIndex stan, w którym agent wykonał ruch
+     * @param action wykonany ruch
+     * @param reward nagroda
+     * @param nextStateIndex następny stan, w którym agent ma ruch (lub -1, jeśli partia się skończyła)
+     */
+    public void add(int stateIndex, int action, double reward, int nextStateIndex) {
+        states[count] = stateIndex;
+        actions[count] = action;
+        rewards[count] = reward;
+        nextStates[count] = nextStateIndex;
+        count++;
+    }
+
+    /**
+     * Aktualizuje tablicę Q agenta dla wszystkich zapisanych przejść (od ostatniego) i czyści ślad.
+     * @param agent aktualizowany agent
+     * @param recorder licznik metryk, w którym zapisywane są błędy TD (lub null)
+     */
+    public void apply(QLearningAgent agent, TrainingMetrics.Recorder recorder) {
+        double gamma = agent.getGamma();
+        double later = 0.0;
+        for (int t = count - 1; t >= 0; t--) {
+            double target;
+            if (steps > 0) {
+                int end = Math.min(t + steps, count);
+                target = 0.0;
+                double discount = 1.0;
+                for (int k = t; k < end; k++) {
+                    target += discount * rewards[k];
+                    discount *= gamma;
+                }
+                target += discount * bootstrap(agent, end - 1);
+            } else if (t == count - 1) {
+                target = rewards[t] + gamma * bootstrap(agent, t);
+            } else {
+                target = rewards[t] + gamma * ((1.0 - lambda) * bootstrap(agent, t) + lambda * later);
+            }
+            later = target;
+            double tdError = agent.updateTowards(states[t], actions[t], target);
+            if (recorder != null) {
+                recorder.recordTdError(tdError);
+            }
+        }
+        count = 0;
+    }
+
+    /**
+     * Zwraca max Q w stanie następnym po przejściu t (0, jeśli partia się skończyła).
+     */
+    private double bootstrap(QLearningAgent agent, int t) {
+        return (nextStates[t] >= 0) ? agent.maxQ(nextStates[t]) : 0.0;
+    }
+
+    /**
+     * Zwraca liczbę zapisanych przejść.
+     * @return liczba przejść w bieżącym epizodzie
+     */
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Tablica Q w pojedynczej precyzji, przechowywana w płaskiej tablicy {@code float[]}.
+ * Zajmuje połowę pamięci {@link DoubleArrayQTable}; precyzja float w zupełności
+ * wystarcza do wyboru najlepszego ruchu.
+ */
+public class FloatArrayQTable implements QTable, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int numStates;
+    private final int numActions;
+    /** Wartości Q: values[state * numActions + action] */
+    private final float[] values;
+
+    /**
+     * Tworzy wyzerowaną tablicę Q.
+     * @param numStates liczba stanów
+     * @param numActions liczba akcji
+     */
+    public FloatArrayQTable(int numStates, int numActions) {
+        this.numStates = numStates;
+        this.numActions = numActions;
+        this.values = new float[numStates * numActions];
+    }
+
+    @Override
+    public int numStates() {
+        return numStates;
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public double get(int state, int action) {
+        return values[state * numActions + action];
+    }
+
+    @Override
+    public void set(int state, int action, double value) {
+        values[state * numActions + action] = (float) value;
+    }
+
+    @Override
+    public double max(int state) {
+        int base = state * numActions;
+        float best = values[base];
+        for (int i = base + 1, end = base + numActions; i < end; i++) {
+            float v = values[i];
+            if (v > best) best = v;
+        }
+        return best;
+    }
+
+    @Override
+    public void bestActions(int[] states, int[] actionMasks, int[] outActions, double[] outMaxQ, int count) {
+        for (int i = 0; i < count; i++) {
+            int base = states[i] * numActions;
+            int mask = actionMasks[i];
+            int best = -1;
+            double bestQ = Double.NEGATIVE_INFINITY;
+            for (; mask != 0; mask &= mask - 1) {
+                int a = Integer.numberOfTrailingZeros(mask);
+                double q = values[base + a];
+                if (best < 0 || q > bestQ) {
+                    bestQ = q;
+                    best = a;
+                }
+            }
+            outActions[i] = best;
+            if (outMaxQ != null) {
+                outMaxQ[i] = bestQ;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Zamrożona kopia agenta Q-learning używana jako przeciwnik w self-play.
+ * Gra zachłannie (bez eksploracji) według kopii tablicy Q z chwili ostatniego {@link #refresh()},
+ * więc trening agenta nie zmienia przeciwnika w trakcie partii.
+ */
+public class FrozenAgentPolicy implements MovePolicy {
+    /** Trenowany agent, z którego kopiowana jest tablica Q */
+    private final QLearningAgent source;
+    /** Agent grający według kopii tablicy Q */
+    private final QLearningAgent frozen;
+
+    /**
+     * Tworzy przeciwnika z bieżącą kopią tablicy Q agenta.
+     * @param source trenowany agent
+     */
+    public FrozenAgentPolicy(QLearningAgent source) {
+        QTable table = source.getQTable();
+        this.source = source;
+        this.frozen = new QLearningAgent(source.getAlpha(), source.getGamma(), 0.0,
+                new DoubleArrayQTable(table.numStates(), table.numActions()), source.isSymmetric(),
+                source.isAfterstates());
+        refresh();
+    }
+
+    /**
+     * Kopiuje bieżącą tablicę Q trenowanego agenta.
+     */
+    public void refresh() {
+        frozen.getQTable().copyFrom(source.getQTable());
+    }
+
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        return frozen.greedyAction(boardIndex, Transitions.emptyMask(boardIndex));
+    }
+}
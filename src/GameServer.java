@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Serwer wielu równoczesnych gier kółko-krzyżyk z jedną wspólną strategią (np. wytrenowanym agentem
+ * z epsilon = 0 lub agentem z {@link QLearningAgent#openMapped}).
+ * <p>
+ * Wszystkie połączenia obsługuje jedna pętla zdarzeń ({@link Selector}) – bez wątku na sesję.
+ * Każda sesja ma własną planszę i bufory, a strategia jest tylko odczytywana.
+ * <p>
+ * Protokół tekstowy, jeden wiersz na komendę (ASCII, zakończony {@code \n}):
+ * <pre>
+ * NEW [X|O]   nowa gra; klient gra podanym symbolem (domyślnie X, X zaczyna)
+ * MOVE n      ruch klienta na pole n (0-8)
+ * QUIT        zakończenie połączenia
+ * </pre>
+ * Odpowiedź: {@code OK <ruch AI lub -1> <plansza> <stan>}, gdzie plansza to 9 znaków {@code .XO},
+ * a stan (z punktu widzenia klienta) to PLAYING, WIN, LOSS lub DRAW; błędy: {@code ERR <opis>}.
+ * <p>
+ * Każda sesja zajmuje jeden deskryptor pliku. Gdy przyjęcie połączenia się nie uda (np. po wyczerpaniu
+ * limitu deskryptorów), błąd jest wypisywany, a przyjmowanie wstrzymywane do zamknięcia którejś sesji –
+ * pozostałe sesje działają dalej.
+ */
+public class GameServer implements Closeable {
+    /** Domyślny port serwera */
+    public static final int DEFAULT_PORT = 9393;
+
+    /** Maksymalna długość wiersza komendy */
+    private static final int MAX_LINE = 64;
+    /** Znaki pól planszy w protokole */
+    private static final byte[] SYMBOLS = {'.', 'X', 'O'};
+
+    private static final byte[] OK = "OK ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLAYING = " PLAYING\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WIN = " WIN\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOSS = " LOSS\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DRAW = " DRAW\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** Wspólna strategia AI (wywoływana tylko z wątku pętli zdarzeń) */
+    private final MovePolicy policy;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final SelectionKey acceptKey;
+    /** Czy przyjmowanie połączeń jest wstrzymane po błędzie */
+    private boolean acceptPaused;
+    private volatile boolean running = true;
+
+    /** Stan jednej sesji (połączenia) */
+    private static final class Session {
+        final Board board = new Board();
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        final ByteBuffer out = ByteBuffer.allocate(1024);
+        byte human = 1;
+        byte ai = 2;
+        boolean active;
+        boolean closing;
+    }
+
+    /**
+     * Tworzy serwer nasłuchujący na interfejsie lokalnym (127.0.0.1).
+     * @param policy strategia AI wspólna dla wszystkich sesji
+     * @param port numer portu (0 = dowolny wolny port)
+     * @throws IOException jeśli nie można otworzyć gniazda
+     */
+    public GameServer(MovePolicy policy, int port) throws IOException {
+        this.policy = policy;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        server.configureBlocking(false);
+        this.acceptKey = server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Zwraca port, na którym serwer nasłuchuje.
+     * @return numer portu
+     * @throws IOException w przypadku błędu gniazda
+     */
+    public int port() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Obsługuje połączenia w bieżącym wątku aż do wywołania {@link #close()}.
+     * @throws IOException w przypadku błędu gniazda nasłuchującego lub selektora
+     */
+    public void run() throws IOException {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        try {
+                            if (key.isReadable()) read(key);
+                            if (key.isValid() && key.isWritable()) write(key);
+                        } catch (IOException e) {
+                            closeSession(key);
+                        }
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // serwer zamknięty z innego wątku
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        }
+    }
+
+    /**
+     * Przyjmuje oczekujące połączenia. Błąd przyjęcia nie kończy pętli zdarzeń: przyjmowanie jest wstrzymywane
+     * (inaczej selektor zgłaszałby gotowość bez przerwy) i wznawiane po zamknięciu sesji.
+     */
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.register(selector, SelectionKey.OP_READ, new Session());
+                channel = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Błąd przyjęcia połączenia: " + e.getMessage()
+                    + " – przyjmowanie wstrzymane do zamknięcia sesji");
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // połączenie i tak jest porzucane
+                }
+            }
+            acceptPaused = true;
+            acceptKey.interestOps(0);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(session.in) < 0) {
+            closeSession(key);
+            return;
+        }
+        ByteBuffer in = session.in;
+        in.flip();
+        int lineStart = 0;
+        for (int i = 0; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                handle(session, in, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        in.position(lineStart);
+        in.compact();
+        if (!in.hasRemaining()) {
+            error(session, "zbyt długi wiersz");
+            in.clear();
+            session.closing = true;
+        }
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Session session = (Session) key.attachment();
+        ByteBuffer out = session.out;
+        out.flip();
+        ((SocketChannel) key.channel()).write(out);
+        out.compact();
+        if (out.position() > 0) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else if (session.closing) {
+            closeSession(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void closeSession(SelectionKey key) throws IOException {
+        key.cancel();
+        key.channel().close();
+        if (acceptPaused && acceptKey.isValid()) {
+            acceptPaused = false;
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /**
+     * Wykonuje jedną komendę z bajtów [start, end) bufora wejściowego.
+     */
+    private void handle(Session session, ByteBuffer in, int start, int end) {
+        if (end > start && in.get(end - 1) == '\r') {
+            end--;
+        }
+        if (session.out.remaining() < MAX_LINE) {
+            // klient nie odbiera odpowiedzi – nie buforujemy bez końca
+            session.closing = true;
+            return;
+        }
+        if (startsWith(in, start, end, "NEW")) {
+            byte human = 1;
+            if (end - start >= 5 && in.get(start + 4) == 'O') {
+                human = 2;
+            }
+            newGame(session, human);
+        } else if (startsWith(in, start, end, "MOVE") && end - start == 6 && in.get(start + 4) == ' ') {
+            move(session, in.get(start + 5) - '0');
+        } else if (startsWith(in, start, end, "QUIT")) {
+            session.closing = true;
+        } else {
+            error(session, "nieznana komenda");
+        }
+    }
+
+    private static boolean startsWith(ByteBuffer in, int start, int end, String command) {
+        if (end - start < command.length()) {
+            return false;
+        }
+        for (int i = 0; i < command.length(); i++) {
+            if (in.get(start + i) != command.charAt(i)) {
+                return false;
+            }
+        }
+        return end - start == command.length() || in.get(start + command.length()) == ' ';
+    }
+
+    private void newGame(Session session, byte human) {
+        session.board.clear();
+        session.human = human;
+        session.ai = (human == 1) ? (byte) 2 : (byte) 1;
+        session.active = true;
+        int aiMove = (session.ai == 1) ? aiMove(session) : -1;
+        reply(session, aiMove, PLAYING);
+    }
+
+    private void move(Session session, int pos) {
+        Board board = session.board;
+        if (!session.active) {
+            error(session, "brak aktywnej gry (NEW)");
+            return;
+        }
+        if (pos < 0 || pos >= 9 || !board.makeMove(pos, session.human)) {
+            error(session, "niedozwolony ruch");
+            return;
+        }
+        if (board.isWin(session.human)) {
+            finish(session, -1, WIN);
+            return;
+        }
+        if (board.isFull()) {
+            finish(session, -1, DRAW);
+            return;
+        }
+        int aiMove = aiMove(session);
+        if (board.isWin(session.ai)) {
+            finish(session, aiMove, LOSS);
+        } else if (board.isFull()) {
+            finish(session, aiMove, DRAW);
+        } else {
+            reply(session, aiMove, PLAYING);
+        }
+    }
+
+    /**
+     * Wykonuje ruch AI według strategii; niedozwolony wybór zastępuje pierwszym wolnym polem.
+     */
+    private int aiMove(Session session) {
+        Board board = session.board;
+        int action = policy.chooseAction(board.getStateIndex(), board.getFields());
+        if (!board.makeMove(action, session.ai)) {
+            action = Integer.numberOfTrailingZeros(board.getEmptyMask());
+            board.makeMove(action, session.ai);
+        }
+        return action;
+    }
+
+    private void finish(Session session, int aiMove, byte[] status) {
+        session.active = false;
+        reply(session, aiMove, status);
+    }
+
+    private static void reply(Session session, int aiMove, byte[] status) {
+        ByteBuffer out = session.out;
+        out.put(OK);
+        if (aiMove < 0) {
+            out.put((byte) '-').put((byte) '1');
+        } else {
+            out.put((byte) ('0' + aiMove));
+        }
+        out.put((byte) ' ');
+        byte[] fields = session.board.getFields();
+        for (int i = 0; i < 9; i++) {
+            out.put(SYMBOLS[fields[i]]);
+        }
+        out.put(status);
+    }
+
+    private static void error(Session session, String message) {
+        byte[] line = ("ERR " + message + "\n").getBytes(StandardCharsets.UTF_8);
+        if (session.out.remaining() < line.length) {
+            session.closing = true;
+            return;
+        }
+        session.out.put(line);
+    }
+
+    /**
+     * Zatrzymuje pętlę zdarzeń i zamyka wszystkie połączenia.
+     * @throws IOException w przypadku błędu zamykania gniazda
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        server.close();
+    }
+}
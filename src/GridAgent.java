@@ -0,0 +1,100 @@
+import java.util.SplittableRandom;
+
+/**
+ * Agent Q-learning dla planszy N × N ({@link GridBoard}) z rzadką tablicą Q ({@link SparseQTable}).
+ * Stan to klucz {@code long} planszy, akcja to indeks pola, a dozwolone akcje wynikają z maski pustych pól.
+ */
+public class GridAgent {
+    private final double alpha;
+    private final double gamma;
+    private double epsilon;
+    private final SparseQTable qTable;
+    /** Generator eksploracji */
+    private SplittableRandom rand = new SplittableRandom();
+
+    /**
+     * Tworzy agenta.
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskontowania
+     * @param epsilon początkowe epsilon
+     * @param qTable rzadka tablica Q o długości wiersza równej liczbie pól planszy
+     */
+    public GridAgent(double alpha, double gamma, double epsilon, SparseQTable qTable) {
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.epsilon = epsilon;
+        this.qTable = qTable;
+    }
+
+    /**
+     * Wybiera akcję metodą epsilon-greedy.
+     * @param key klucz stanu planszy
+     * @param emptyMask maska pustych pól (niezerowa)
+     * @return indeks wybranego pola
+     */
+    public int chooseAction(long key, long emptyMask) {
+        if (rand.nextDouble() < epsilon) {
+            for (int n = rand.nextInt(Long.bitCount(emptyMask)); n > 0; n--) {
+                emptyMask &= emptyMask - 1;
+            }
+            return Long.numberOfTrailingZeros(emptyMask);
+        }
+        return qTable.bestAction(key, emptyMask);
+    }
+
+    /**
+     * Aktualizuje wartość Q po pojedynczym kroku:
+     * Q(s,a) ← Q(s,a) + α * (r + γ * max_a' Q(s',a') - Q(s,a)), maksimum po pustych polach s'.
+     * @param key klucz bieżącego stanu
+     * @param action wykonana akcja
+     * @param reward nagroda
+     * @param nextKey klucz następnego stanu (lub -1, jeśli terminalny)
+     * @param nextEmptyMask maska pustych pól następnego stanu
+     * @return błąd TD
+     */
+    public double update(long key, int action, double reward, long nextKey, long nextEmptyMask) {
+        double maxQNext = (nextKey >= 0) ? qTable.maxQ(nextKey, nextEmptyMask) : 0.0;
+        return qTable.blend(key, action, reward + gamma * maxQNext, alpha);
+    }
+
+    /**
+     * Zmniejsza epsilon, nie schodząc poniżej minimum.
+     * @param decay współczynnik zanikania
+     * @param minEpsilon minimalne epsilon
+     */
+    public void decayEpsilon(double decay, double minEpsilon) {
+        epsilon = Math.max(minEpsilon, epsilon * decay);
+    }
+
+    /**
+     * Ustawia epsilon.
+     * @param epsilon nowe epsilon
+     */
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Zwraca epsilon.
+     * @return epsilon
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * Ustawia ziarno generatora eksploracji.
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        rand = new SplittableRandom(seed);
+    }
+
+    /**
+     * Zwraca tablicę Q agenta.
+     * @return rzadka tablica Q
+     */
+    public SparseQTable getQTable() {
+        return qTable;
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plansza N × N z wygraną za K symboli w linii (np. 4 × 4 z K = 4, 5 × 5 z K = 4).
+ * Pola graczy są przechowywane jako maski bitowe {@code long}, a stan planszy – jako 64-bitowy klucz
+ * w systemie trójkowym (jak {@link Board#getStateIndex()}, dla 3 × 3 klucz jest równy indeksowi stanu),
+ * aktualizowany przyrostowo. Linie zwycięstwa są generowane dla podanego N i K.
+ */
+public class GridBoard {
+    /** Największy bok planszy – 3^36 mieści się w kluczu long */
+    public static final int MAX_SIZE = 6;
+
+    private final int size;
+    private final int k;
+    private final int cells;
+    /** Maska pełnej planszy */
+    private final long fullMask;
+    /** Potęgi 3 dla kolejnych pól */
+    private final long[] pow3;
+    /** Linie zwycięstwa przechodzące przez dane pole: linesThrough[pos] */
+    private final long[][] linesThrough;
+    /** Maski pól graczy: masks[1] = X, masks[2] = O */
+    private final long[] masks = new long[3];
+    private long key;
+
+    /**
+     * Tworzy pustą planszę.
+     * @param size bok planszy (3..{@link #MAX_SIZE})
+     * @param k liczba symboli w linii potrzebna do wygranej (3..size)
+     */
+    public GridBoard(int size, int k) {
+        if (size < 3 || size > MAX_SIZE || k < 3 || k > size) {
+            throw new IllegalArgumentException("Niepoprawny rozmiar planszy: " + size + "×" + size + ", K=" + k);
+        }
+        this.size = size;
+        this.k = k;
+        this.cells = size * size;
+        this.fullMask = (1L << cells) - 1;
+        this.pow3 = new long[cells];
+        long p = 1;
+        for (int i = 0; i < cells; i++) {
+            pow3[i] = p;
+            p *= 3;
+        }
+        long[] lines = winMasks(size, k);
+        this.linesThrough = new long[cells][];
+        for (int pos = 0; pos < cells; pos++) {
+            int count = 0;
+            for (long line : lines) {
+                if ((line & (1L << pos)) != 0) count++;
+            }
+            linesThrough[pos] = new long[count];
+            count = 0;
+            for (long line : lines) {
+                if ((line & (1L << pos)) != 0) linesThrough[pos][count++] = line;
+            }
+        }
+    }
+
+    /**
+     * Generuje maski wszystkich linii zwycięstwa: K kolejnych pól w wierszu, kolumnie lub na przekątnej.
+     * @param size bok planszy
+     * @param k długość linii
+     * @return maski linii (bit r * size + c = pole w wierszu r i kolumnie c)
+     */
+    public static long[] winMasks(int size, int k) {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        List<Long> lines = new ArrayList<>();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                for (int[] d : directions) {
+                    int endR = r + d[0] * (k - 1);
+                    int endC = c + d[1] * (k - 1);
+                    if (endR < 0 || endR >= size || endC < 0 || endC >= size) {
+                        continue;
+                    }
+                    long line = 0;
+                    for (int i = 0; i < k; i++) {
+                        line |= 1L << ((r + d[0] * i) * size + c + d[1] * i);
+                    }
+                    lines.add(line);
+                }
+            }
+        }
+        long[] out = new long[lines.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = lines.get(i);
+        }
+        return out;
+    }
+
+    /**
+     * Wykonuje ruch na puste pole.
+     * @param pos indeks pola (0..cells-1)
+     * @param player numer gracza (1 = X, 2 = O)
+     */
+    public void makeMove(int pos, byte player) {
+        masks[player] |= 1L << pos;
+        key += player * pow3[pos];
+    }
+
+    /**
+     * Cofa ruch gracza.
+     * @param pos indeks pola
+     * @param player numer gracza, który zajmował pole
+     */
+    public void undoMove(int pos, byte player) {
+        masks[player] &= ~(1L << pos);
+        key -= player * pow3[pos];
+    }
+
+    /**
+     * Sprawdza, czy ostatni ruch gracza na pole pos domknął linię (sprawdzane są tylko linie przez to pole).
+     * @param pos pole ostatniego ruchu
+     * @param player numer gracza
+     * @return true, jeśli gracz wygrał
+     */
+    public boolean isWinAt(int pos, byte player) {
+        long mask = masks[player];
+        for (long line : linesThrough[pos]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Czyści planszę.
+     */
+    public void clear() {
+        masks[1] = 0;
+        masks[2] = 0;
+        key = 0;
+    }
+
+    /**
+     * Zwraca maskę pustych pól.
+     * @return maska, w której bit i jest ustawiony, jeśli pole i jest puste
+     */
+    public long getEmptyMask() {
+        return ~(masks[1] | masks[2]) & fullMask;
+    }
+
+    /**
+     * Sprawdza, czy plansza jest pełna.
+     * @return true, jeśli nie ma pustych pól
+     */
+    public boolean isFull() {
+        return (masks[1] | masks[2]) == fullMask;
+    }
+
+    /**
+     * Zwraca klucz stanu planszy (zapis trójkowy, pole i ma wagę 3^i).
+     * @return klucz stanu (nieujemny)
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Zwraca bok planszy.
+     * @return N
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Zwraca liczbę symboli w linii potrzebną do wygranej.
+     * @return K
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Zwraca liczbę pól planszy.
+     * @return N * N
+     */
+    public int getCells() {
+        return cells;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.SplittableRandom;
+
+/**
+ * Trening agenta {@link GridAgent} na planszy N × N z K w linii przeciwko losowemu przeciwnikowi.
+ * Agent uczy się zwykłym Q-learningiem: nagroda 0 i stan po odpowiedzi przeciwnika po każdym ruchu,
+ * +1 za wygraną, -1 za porażkę, 0 za remis. Co reportInterval epizodów wypisywane są wyniki okna,
+ * przepustowość oraz liczba wierszy i pamięć tablicy Q.
+ */
+public class GridTrainer {
+    private final GridAgent agent;
+    private final GridBoard board;
+    private final int episodes;
+    private final double epsilonDecay;
+    private final double minEpsilon;
+    private SplittableRandom rand = new SplittableRandom();
+    private int reportInterval = 100_000;
+
+    private long wins;
+    private long losses;
+    private long draws;
+
+    /**
+     * Tworzy trenera.
+     * @param agent agent (tablica Q o długości wiersza size * size)
+     * @param size bok planszy
+     * @param k liczba symboli w linii potrzebna do wygranej
+     * @param episodes liczba epizodów
+     * @param epsilonDecay współczynnik zanikania epsilon (po każdym epizodzie)
+     * @param minEpsilon minimalne epsilon
+     */
+    public GridTrainer(GridAgent agent, int size, int k, int episodes, double epsilonDecay, double minEpsilon) {
+        this.agent = agent;
+        this.board = new GridBoard(size, k);
+        this.episodes = episodes;
+        this.epsilonDecay = epsilonDecay;
+        this.minEpsilon = minEpsilon;
+    }
+
+    /**
+     * Ustawia, co ile epizodów wypisywany jest postęp (0 = bez komunikatów).
+     * @param reportInterval liczba epizodów
+     */
+    public void setReportInterval(int reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Ustawia ziarno generatorów trenera i agenta.
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        rand = new SplittableRandom(seed);
+        agent.setSeed(~seed);
+    }
+
+    /**
+     * Przeprowadza trening.
+     * @return przepustowość w epizodach na sekundę
+     */
+    public double train() {
+        if (reportInterval > 0) {
+            System.out.printf("Trening na planszy %d×%d (K=%d)...%n", board.getSize(), board.getSize(), board.getK());
+        }
+        long start = System.nanoTime();
+        long windowStart = start;
+        for (int ep = 1; ep <= episodes; ep++) {
+            playEpisode();
+            agent.decayEpsilon(epsilonDecay, minEpsilon);
+            if (reportInterval > 0 && ep % reportInterval == 0) {
+                long now = System.nanoTime();
+                double n = wins + losses + draws;
+                SparseQTable q = agent.getQTable();
+                System.out.printf("Epizod %d/%d – epsilon=%.4f, wygrane %.1f%%, porażki %.1f%%, remisy %.1f%%, "
+                                + "%.0f epizodów/s, stany %d, pamięć %.1f MB%n",
+                        ep, episodes, agent.getEpsilon(), 100 * wins / n, 100 * losses / n, 100 * draws / n,
+                        reportInterval / ((now - windowStart) / 1e9), q.size(), q.memoryBytes() / 1e6);
+                wins = 0;
+                losses = 0;
+                draws = 0;
+                windowStart = now;
+            }
+        }
+        return episodes / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Rozgrywa jeden epizod i aktualizuje tablicę Q agenta.
+     * @return wynik epizodu z punktu widzenia agenta
+     */
+    TicTacToeTrainer.Outcome playEpisode() {
+        board.clear();
+        byte agentPlayer = rand.nextBoolean() ? (byte) 1 : (byte) 2;
+        byte oppPlayer = (agentPlayer == 1) ? (byte) 2 : (byte) 1;
+        byte currentPlayer = 1;
+        long prevKey = -1;
+        int prevAction = -1;
+
+        while (true) {
+            long key = board.getKey();
+            long emptyMask = board.getEmptyMask();
+            if (currentPlayer == agentPlayer) {
+                if (prevKey >= 0) {
+                    agent.update(prevKey, prevAction, 0.0, key, emptyMask);
+                }
+                int action = agent.chooseAction(key, emptyMask);
+                board.makeMove(action, agentPlayer);
+                if (board.isWinAt(action, agentPlayer)) {
+                    agent.update(key, action, +1.0, -1, 0);
+                    wins++;
+                    return TicTacToeTrainer.Outcome.WIN;
+                }
+                if (board.isFull()) {
+                    agent.update(key, action, 0.0, -1, 0);
+                    draws++;
+                    return TicTacToeTrainer.Outcome.DRAW;
+                }
+                prevKey = key;
+                prevAction = action;
+                currentPlayer = oppPlayer;
+            } else {
+                for (int n = rand.nextInt(Long.bitCount(emptyMask)); n > 0; n--) {
+                    emptyMask &= emptyMask - 1;
+                }
+                int move = Long.numberOfTrailingZeros(emptyMask);
+                board.makeMove(move, oppPlayer);
+                if (board.isWinAt(move, oppPlayer)) {
+                    if (prevKey >= 0) {
+                        agent.update(prevKey, prevAction, -1.0, -1, 0);
+                    }
+                    losses++;
+                    return TicTacToeTrainer.Outcome.LOSS;
+                }
+                if (board.isFull()) {
+                    if (prevKey >= 0) {
+                        agent.update(prevKey, prevAction, 0.0, -1, 0);
+                    }
+                    draws++;
+                    return TicTacToeTrainer.Outcome.DRAW;
+                }
+                currentPlayer = agentPlayer;
+            }
+        }
+    }
+}
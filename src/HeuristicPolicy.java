@@ -0,0 +1,36 @@
+import java.util.Random;
+
+/**
+ * Przeciwnik heurystyczny: wygrywa, jeśli może wygrać jednym ruchem, w przeciwnym razie
+ * blokuje natychmiastową wygraną rywala, a gdy żadne z nich nie zachodzi – gra losowo.
+ */
+public class HeuristicPolicy implements MovePolicy {
+    private final Random rand;
+
+    /**
+     * Tworzy przeciwnika heurystycznego.
+     * @param rand generator losowy dla ruchów bez wygranej i bez blokady
+     */
+    public HeuristicPolicy(Random rand) {
+        this.rand = rand;
+    }
+
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        int empty = Transitions.emptyMask(boardIndex);
+        byte toMove = (Integer.bitCount(empty) & 1) == 1 ? (byte) 1 : (byte) 2;
+        byte other = (toMove == 1) ? (byte) 2 : (byte) 1;
+
+        int moves = Transitions.winningMoves(boardIndex, toMove);
+        if (moves == 0) {
+            moves = Transitions.winningMoves(boardIndex, other);
+        }
+        if (moves != 0) {
+            return Integer.numberOfTrailingZeros(moves);
+        }
+        for (int n = rand.nextInt(Integer.bitCount(empty)); n > 0; n--) {
+            empty &= empty - 1;
+        }
+        return Integer.numberOfTrailingZeros(empty);
+    }
+}
@@ -0,0 +1,328 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Przeszukiwanie hiperparametrów: wiele niezależnych konfiguracji (alpha, gamma, początkowe i minimalne
+ * epsilon, część treningu, w której epsilon zanika) trenowanych równolegle. Konfiguracje trafiają do
+ * wspólnej kolejki puli wątków, a agent powstaje dopiero, gdy wątek pobierze zadanie – w pamięci jest
+ * najwyżej tyle tablic Q, ile wątków.
+ * <p>
+ * Trening każdej konfiguracji jest podzielony na {@code rungs} odcinków. Po każdym odcinku strategia
+ * zachłanna gra partie oceniające z losowym przeciwnikiem; wynik to (wygrane + remisy / 2) / partie.
+ * Reguła mediany przerywa konfigurację, której wynik po odcinku jest niższy od mediany wyników innych
+ * konfiguracji po tym samym odcinku (jeśli jest ich co najmniej {@code minPeers}). Przy wielu wątkach
+ * to, które konfiguracje zostaną przerwane, zależy od kolejności ich kończenia.
+ * Wszystkie konfiguracje trenują z tym samym ziarnem i są oceniane na tych samych partiach.
+ */
+public class HyperparameterSweep {
+    /** Domyślne wartości parametrów (jak w {@link Main}) */
+    private static final Config DEFAULTS = new Config(0.1, 0.9, 0.7, 0.01, 0.6);
+    /** Nazwy parametrów w specyfikacji, w kolejności pól {@link Config} */
+    private static final String[] PARAMETERS = {"alpha", "gamma", "epsilon", "min-epsilon", "decay"};
+
+    private final int episodes;
+    private final int threads;
+    private int evaluationGames = 10_000;
+    private int rungs = 4;
+    private int minPeers = 3;
+    private boolean opponentPool;
+    private long seed = 1;
+
+    /** Wyniki oceny po każdym odcinku wszystkich dotąd ocenionych konfiguracji (reguła mediany) */
+    private List<List<Double>> rungScores;
+
+    /**
+     * Konfiguracja treningu.
+     * @param alpha współczynnik uczenia
+     * @param gamma dyskonto
+     * @param epsilon początkowe epsilon
+     * @param minEpsilon dolna granica epsilon
+     * @param decayFraction część epizodów, po której epsilon osiąga dolną granicę
+     */
+    public record Config(double alpha, double gamma, double epsilon, double minEpsilon, double decayFraction) {
+
+        /**
+         * Zwraca współczynnik zanikania epsilon na epizod dla podanej liczby epizodów.
+         * @param episodes liczba epizodów treningu
+         * @return współczynnik zanikania
+         */
+        public double epsilonDecay(int episodes) {
+            return Math.pow(minEpsilon / epsilon, 1.0 / Math.max(1.0, decayFraction * episodes));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "alpha=%.4g gamma=%.4g epsilon=%.4g min-epsilon=%.4g decay=%.3g",
+                    alpha, gamma, epsilon, minEpsilon, decayFraction);
+        }
+    }
+
+    /**
+     * Wynik jednej konfiguracji.
+     * @param config konfiguracja
+     * @param episodes liczba rozegranych epizodów (mniej niż zadano, jeśli konfigurację przerwano)
+     * @param pruned czy konfigurację przerwano regułą mediany
+     * @param score wynik ostatniej oceny: (wygrane + remisy / 2) / partie
+     * @param winRate odsetek wygranych w ostatniej ocenie
+     * @param lossRate odsetek porażek w ostatniej ocenie
+     * @param losingLines liczba przegranych linii gry (za X i za O) przy wszystkich ruchach przeciwnika
+     * @param trainNanos czas samego treningu w nanosekundach (bez ocen)
+     */
+    public record Result(Config config, int episodes, boolean pruned, double score, double winRate, double lossRate,
+                         long losingLines, long trainNanos) {
+    }
+
+    /**
+     * Tworzy przeszukiwanie.
+     * @param episodes liczba epizodów treningu każdej konfiguracji
+     * @param threads liczba konfiguracji trenowanych jednocześnie
+     */
+    public HyperparameterSweep(int episodes, int threads) {
+        if (episodes < 1 || threads < 1) {
+            throw new IllegalArgumentException("Niepoprawne parametry przeszukiwania: " + episodes + " epizodów, "
+                    + threads + " wątków");
+        }
+        this.episodes = episodes;
+        this.threads = threads;
+    }
+
+    /**
+     * Ustawia ocenę konfiguracji.
+     * @param games liczba partii każdej oceny
+     * @param rungs liczba odcinków treningu (ocena po każdym z nich; 1 = tylko ocena końcowa)
+     */
+    public void setEvaluation(int games, int rungs) {
+        if (games < 1 || rungs < 1) {
+            throw new IllegalArgumentException("Niepoprawna ocena: " + games + " partii, " + rungs + " odcinków");
+        }
+        this.evaluationGames = games;
+        this.rungs = rungs;
+    }
+
+    /**
+     * Ustawia regułę mediany.
+     * @param minPeers najmniejsza liczba wcześniejszych wyników po odcinku, przy której konfiguracja
+     *                 może zostać przerwana (0 = bez przerywania)
+     */
+    public void setPruning(int minPeers) {
+        this.minPeers = minPeers;
+    }
+
+    /**
+     * Włącza trening z pulą przeciwników ({@link OpponentPool#curriculum}) zamiast losowego przeciwnika.
+     * @param opponentPool czy trenować z pulą przeciwników
+     */
+    public void setOpponentPool(boolean opponentPool) {
+        this.opponentPool = opponentPool;
+    }
+
+    /**
+     * Ustawia ziarno treningu i partii oceniających (wspólne dla wszystkich konfiguracji).
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Tworzy listę konfiguracji ze specyfikacji postaci {@code alpha=0.05,0.1,0.2;gamma=0.9,0.99;decay=0.3..0.8}.
+     * Parametr podany listą wartości przyjmuje każdą z nich, a zakresem {@code min..max} – wartość losową
+     * z rozkładu jednostajnego. Bez losowania ({@code samples = 0}) wynikiem jest siatka – iloczyn
+     * kartezjański list (zakresy są wtedy niedozwolone); z losowaniem – {@code samples} konfiguracji,
+     * w których każdy parametr jest losowany z listy lub zakresu. Brakujące parametry mają wartości domyślne
+     * (alpha 0.1, gamma 0.9, epsilon 0.7, min-epsilon 0.01, decay 0.6).
+     * @param spec specyfikacja przeszukiwania
+     * @param samples liczba losowanych konfiguracji (0 = siatka)
+     * @param seed ziarno losowania
+     * @return lista konfiguracji
+     */
+    public static List<Config> parse(String spec, int samples, long seed) {
+        double[] defaults = {DEFAULTS.alpha(), DEFAULTS.gamma(), DEFAULTS.epsilon(), DEFAULTS.minEpsilon(),
+                DEFAULTS.decayFraction()};
+        double[][] values = new double[PARAMETERS.length][];
+        double[][] ranges = new double[PARAMETERS.length][];
+        for (String part : spec.split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            int p = (eq < 0) ? -1 : Arrays.asList(PARAMETERS).indexOf(part.substring(0, eq).trim());
+            if (p < 0) {
+                throw new IllegalArgumentException("Nieznany parametr przeszukiwania: " + part);
+            }
+            String value = part.substring(eq + 1).trim();
+            int dots = value.indexOf("..");
+            if (dots >= 0) {
+                if (samples == 0) {
+                    throw new IllegalArgumentException("Zakres " + part + " wymaga losowania (liczba próbek > 0)");
+                }
+                ranges[p] = new double[] {Double.parseDouble(value.substring(0, dots)),
+                        Double.parseDouble(value.substring(dots + 2))};
+            } else {
+                values[p] = Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+            }
+        }
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            if (values[p] == null && ranges[p] == null) {
+                values[p] = new double[] {defaults[p]};
+            }
+        }
+
+        List<Config> configs = new ArrayList<>();
+        double[] v = new double[PARAMETERS.length];
+        if (samples > 0) {
+            SplittableRandom rand = new SplittableRandom(seed);
+            for (int i = 0; i < samples; i++) {
+                for (int p = 0; p < PARAMETERS.length; p++) {
+                    v[p] = (ranges[p] != null) ? rand.nextDouble(ranges[p][0], ranges[p][1])
+                            : values[p][rand.nextInt(values[p].length)];
+                }
+                configs.add(new Config(v[0], v[1], v[2], v[3], v[4]));
+            }
+        } else {
+            int[] index = new int[PARAMETERS.length];
+            while (true) {
+                for (int p = 0; p < PARAMETERS.length; p++) {
+                    v[p] = values[p][index[p]];
+                }
+                configs.add(new Config(v[0], v[1], v[2], v[3], v[4]));
+                int p = PARAMETERS.length - 1;
+                while (p >= 0 && ++index[p] == values[p].length) {
+                    index[p--] = 0;
+                }
+                if (p < 0) {
+                    break;
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Trenuje i ocenia wszystkie konfiguracje.
+     * @param configs konfiguracje
+     * @param onResult wywoływane (z wątku puli) po zakończeniu każdej konfiguracji, może być null
+     * @return wyniki od najlepszego: najpierw konfiguracje nieprzerwane, dalej według wyniku oceny,
+     *         mniejszej liczby przegranych linii i krótszego treningu
+     */
+    public List<Result> run(List<Config> configs, Consumer<Result> onResult) {
+        rungScores = new ArrayList<>();
+        for (int r = 0; r < rungs; r++) {
+            rungScores.add(new ArrayList<>());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Result> results = new ArrayList<>(configs.size());
+        try {
+            List<Future<Result>> futures = new ArrayList<>(configs.size());
+            for (Config config : configs) {
+                futures.add(pool.submit(() -> {
+                    Result result = train(config);
+                    if (onResult != null) {
+                        onResult.accept(result);
+                    }
+                    return result;
+                }));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano przeszukiwanie hiperparametrów", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Błąd w wątku przeszukiwania", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        results.sort(Comparator.comparing(Result::pruned)
+                .thenComparing(Comparator.comparingDouble(Result::score).reversed())
+                .thenComparingLong(Result::losingLines)
+                .thenComparingLong(Result::trainNanos));
+        return results;
+    }
+
+    /**
+     * Trenuje jedną konfigurację odcinkami, oceniając ją po każdym odcinku.
+     */
+    private Result train(Config config) {
+        QLearningAgent agent = new QLearningAgent(config.alpha(), config.gamma(), config.epsilon());
+        TicTacToeTrainer trainer = new TicTacToeTrainer(agent, episodes, config.epsilonDecay(episodes),
+                config.minEpsilon());
+        trainer.setReportInterval(0);
+        if (opponentPool) {
+            trainer.setOpponentPool(OpponentPool.curriculum(agent));
+        }
+        trainer.setSeed(seed);
+        PolicyEvaluator evaluator = new PolicyEvaluator(1);
+        try {
+            long trainNanos = 0;
+            int done = 0;
+            PolicyEvaluator.Result evaluation = null;
+            boolean pruned = false;
+            for (int r = 0; r < rungs && !pruned; r++) {
+                int count = (int) ((long) episodes * (r + 1) / rungs) - done;
+                long start = System.nanoTime();
+                trainer.trainEpisodes(count);
+                trainNanos += System.nanoTime() - start;
+                done += count;
+                evaluation = evaluator.tournament(PolicyEvaluator.greedy(agent), PolicyEvaluator.random(),
+                        evaluationGames, seed);
+                pruned = r < rungs - 1 && belowMedian(r, score(evaluation));
+            }
+            MovePolicy greedy = PolicyEvaluator.greedy(agent).apply(0);
+            long losingLines = PolicyEvaluator.exhaustive(greedy, (byte) 1).losses()
+                    + PolicyEvaluator.exhaustive(greedy, (byte) 2).losses();
+            return new Result(config, done, pruned, score(evaluation), (double) evaluation.wins() / evaluation.games(),
+                    (double) evaluation.losses() / evaluation.games(), losingLines, trainNanos);
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    private static double score(PolicyEvaluator.Result evaluation) {
+        return (evaluation.wins() + 0.5 * evaluation.draws()) / evaluation.games();
+    }
+
+    /**
+     * Zapisuje wynik po odcinku i sprawdza, czy jest niższy od mediany wcześniejszych wyników po tym odcinku.
+     */
+    private boolean belowMedian(int rung, double score) {
+        List<Double> scores = rungScores.get(rung);
+        synchronized (scores) {
+            boolean below = false;
+            if (minPeers > 0 && scores.size() >= minPeers) {
+                double[] sorted = scores.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+                int mid = sorted.length / 2;
+                double median = (sorted.length % 2 == 1) ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+                below = score < median;
+            }
+            scores.add(score);
+            return below;
+        }
+    }
+
+    /**
+     * Wypisuje tabelę wyników.
+     * @param results wyniki (w kolejności rankingu)
+     */
+    public static void printTable(List<Result> results) {
+        System.out.println("  #   alpha   gamma  epsilon  min-eps  decay   epizody   wynik  wygrane  porażki  linie   czas [s]");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            Config c = r.config();
+            System.out.printf("%3d  %6.4f  %6.4f  %7.4f  %7.4f  %5.3f  %8d  %6.2f%%  %6.2f%%  %6.2f%%  %5d  %8.2f%s%n",
+                    i + 1, c.alpha(), c.gamma(), c.epsilon(), c.minEpsilon(), c.decayFraction(), r.episodes(),
+                    100 * r.score(), 100 * r.winRate(), 100 * r.lossRate(), r.losingLines(), r.trainNanos() / 1e9,
+                    r.pruned() ? "  przerwano" : "");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Zapisuje migawki metryk treningu w formacie JSON Lines (jeden obiekt JSON na okno epizodów).
+ */
+public class JsonLinesMetricsSink implements MetricsSink {
+    private final BufferedWriter out;
+
+    /**
+     * Tworzy plik JSON Lines.
+     * @param filename ścieżka do pliku (nadpisywanego)
+     * @throws IOException w przypadku błędu otwarcia pliku
+     */
+    public JsonLinesMetricsSink(String filename) throws IOException {
+        out = new BufferedWriter(new FileWriter(filename));
+    }
+
+    @Override
+    public void write(TrainingMetrics.Snapshot s) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        line.append(String.format(Locale.ROOT,
+                "{\"episodes\":%d,\"window\":%d,\"win_rate\":%.5f,\"loss_rate\":%.5f,\"draw_rate\":%.5f,"
+                        + "\"mean_td_error\":%.6g,\"states_visited\":%d,\"episodes_per_s\":%.0f,\"epsilon\":%.6f,"
+                        + "\"td_hist\":[",
+                s.episodes(), s.windowEpisodes(), s.winRate(), s.lossRate(), s.drawRate(),
+                s.meanTdError(), s.statesVisited(), s.episodesPerSecond(), s.epsilon()));
+        long[] histogram = s.tdErrorHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(histogram[i]);
+        }
+        line.append("]}");
+        out.write(line.toString());
+        out.newLine();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Generator obciążenia dla {@link GameServer}: otwiera wiele równoczesnych połączeń i w każdym
+ * rozgrywa kolejne partie losowymi ruchami. Mierzy tempo nawiązywania sesji (połączeń) na sekundę,
+ * opóźnienie odpowiedzi na ruch (od wysłania {@code MOVE} do odebrania odpowiedzi z ruchem AI)
+ * i liczbę rozegranych partii na sekundę. Sesja jest trwała i rozgrywa wiele partii, dlatego
+ * przepustowość w trakcie pomiaru podawana jest w partiach na sekundę.
+ * <p>
+ * Uruchomienie: {@code java LoadGenerator [--port=N] [--sessions=N] [--seconds=N] [--embedded]} –
+ * z opcją {@code --embedded} serwer jest uruchamiany w tym samym procesie (strategia z pliku
+ * qtable.dat odwzorowanego w pamięci, plik w starym formacie jest importowany do agenta, a bez
+ * pliku gra solver). Każda sesja zajmuje deskryptor pliku po stronie klienta i serwera, więc
+ * z {@code --embedded} proces potrzebuje ok. 2 × sessions deskryptorów (domyślnie 400 sesji
+ * zamiast 1000 – mieści się w typowym limicie {@code ulimit -n 1024}).
+ */
+public class LoadGenerator {
+    private static final byte[] NEW = "NEW\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Wynik pomiaru.
+     * @param sessions liczba równoczesnych połączeń
+     * @param connectSeconds czas nawiązania wszystkich sesji w sekundach
+     * @param seconds czas pomiaru w sekundach
+     * @param games liczba zakończonych partii
+     * @param moves liczba zmierzonych ruchów
+     * @param p50Micros mediana opóźnienia ruchu w mikrosekundach
+     * @param p99Micros 99. percentyl opóźnienia ruchu w mikrosekundach
+     */
+    public record Report(int sessions, double connectSeconds, double seconds, long games, long moves,
+                         double p50Micros, double p99Micros) {
+
+        /**
+         * Zwraca liczbę sesji nawiązanych na sekundę (połączenie i rejestracja w selektorze).
+         * @return sesje na sekundę
+         */
+        public double sessionsPerSecond() {
+            return sessions / connectSeconds;
+        }
+
+        /**
+         * Zwraca liczbę zakończonych partii na sekundę.
+         * @return partie na sekundę
+         */
+        public double gamesPerSecond() {
+            return games / seconds;
+        }
+    }
+
+    /** Stan jednego połączenia klienta */
+    private static final class Client {
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        final ByteBuffer out = ByteBuffer.allocate(16);
+        long sentAt;
+        boolean moveSent;
+    }
+
+    private final Random rand = new Random();
+    /** Komenda ruchu; cyfra pola jest podmieniana przed wysłaniem */
+    private final byte[] move = "MOVE 0\n".getBytes(StandardCharsets.US_ASCII);
+    /** Zmierzone opóźnienia w nanosekundach (tablica powiększana w razie potrzeby) */
+    private long[] latencies = new long[1 << 20];
+    private int latencyCount;
+    private long games;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = Integer.parseInt(option(args, "--port", String.valueOf(GameServer.DEFAULT_PORT)));
+        boolean embedded = Arrays.asList(args).contains("--embedded");
+        int sessions = Integer.parseInt(option(args, "--sessions", embedded ? "400" : "1000"));
+        int seconds = Integer.parseInt(option(args, "--seconds", "10"));
+
+        GameServer server = null;
+        Thread serverThread = null;
+        if (embedded) {
+            MovePolicy policy;
+            try {
+                policy = QLearningAgent.openMapped("qtable.dat");
+            } catch (IOException e) {
+                QLearningAgent agent = new QLearningAgent(0.1, 0.9, 0.0);
+                if (agent.loadQTable("qtable.dat")) {
+                    policy = agent;
+                } else {
+                    System.out.println("Brak qtable.dat – serwer gra solverem.");
+                    policy = new MinimaxSolver();
+                }
+            }
+            server = new GameServer(policy, 0);
+            port = server.port();
+            GameServer running = server;
+            serverThread = new Thread(() -> {
+                try {
+                    running.run();
+                } catch (IOException e) {
+                    System.err.println("Błąd serwera: " + e.getMessage());
+                }
+            }, "game-server");
+            serverThread.start();
+        }
+
+        Report report = new LoadGenerator().run(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                sessions, seconds * 1_000_000_000L);
+        System.out.printf("Sesje: %d (nawiązane w %.2f s, %.0f sesji/s), czas: %.1f s%n", report.sessions(),
+                report.connectSeconds(), report.sessionsPerSecond(), report.seconds());
+        System.out.printf("Partie: %d (%.0f partii/s), ruchy: %d (%.0f ruchów/s)%n",
+                report.games(), report.gamesPerSecond(), report.moves(), report.moves() / report.seconds());
+        System.out.printf("Opóźnienie ruchu: p50 = %.1f µs, p99 = %.1f µs%n", report.p50Micros(), report.p99Micros());
+
+        if (server != null) {
+            server.close();
+            serverThread.join();
+        }
+    }
+
+    /**
+     * Otwiera połączenia i gra przez podany czas.
+     * @param address adres serwera
+     * @param sessions liczba równoczesnych połączeń
+     * @param durationNanos czas pomiaru w nanosekundach (liczony od nawiązania wszystkich połączeń)
+     * @return wynik pomiaru
+     * @throws IOException w przypadku błędu połączenia
+     */
+    public Report run(InetSocketAddress address, int sessions, long durationNanos) throws IOException {
+        try (Selector selector = Selector.open()) {
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Client());
+            }
+            long start = System.nanoTime();
+            double connectSeconds = (start - connectStart) / 1e9;
+            for (SelectionKey key : selector.keys()) {
+                send(key, NEW);
+            }
+            long deadline = start + durationNanos;
+            while (System.nanoTime() < deadline) {
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            return new Report(sessions, connectSeconds, seconds, games, latencyCount,
+                    percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Client client = (Client) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(client.in) < 0) {
+            throw new IOException("Serwer zamknął połączenie");
+        }
+        long now = System.nanoTime();
+        ByteBuffer in = client.in;
+        in.flip();
+        int lineStart = 0;
+        for (int i = 0; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                onReply(key, client, in, lineStart, i, now);
+                lineStart = i + 1;
+            }
+        }
+        in.position(lineStart);
+        in.compact();
+    }
+
+    /**
+     * Obsługuje odpowiedź {@code OK <ruch> <plansza> <stan>}: zapisuje opóźnienie i wysyła
+     * kolejny losowy ruch albo rozpoczyna nową partię.
+     */
+    private void onReply(SelectionKey key, Client client, ByteBuffer in, int start, int end, long now)
+            throws IOException {
+        if (in.get(start) != 'O') {
+            throw new IOException("Błąd serwera: " + StandardCharsets.UTF_8.decode(in.slice(start, end - start)));
+        }
+        if (client.moveSent) {
+            record(now - client.sentAt);
+            client.moveSent = false;
+        }
+        int boardStart = start + 3;
+        while (in.get(boardStart) != ' ') boardStart++;
+        boardStart++;
+        if (in.get(boardStart + 10) != 'P') {
+            games++;
+            send(key, NEW);
+            return;
+        }
+        int emptyMask = 0;
+        for (int i = 0; i < 9; i++) {
+            if (in.get(boardStart + i) == '.') emptyMask |= 1 << i;
+        }
+        int pos = nthSetBit(emptyMask, rand.nextInt(Integer.bitCount(emptyMask)));
+        move[5] = (byte) ('0' + pos);
+        client.sentAt = System.nanoTime();
+        client.moveSent = true;
+        send(key, move);
+    }
+
+    private static void send(SelectionKey key, byte[] message) throws IOException {
+        Client client = (Client) key.attachment();
+        ByteBuffer out = client.out;
+        out.clear();
+        out.put(message).flip();
+        SocketChannel channel = (SocketChannel) key.channel();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    private void record(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0.0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static int nthSetBit(int mask, int n) {
+        for (int k = 0; k < n; k++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+}
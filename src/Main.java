@@ -1,4 +1,8 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import javax.management.JMException;
 
 public class Main {
     public static void main(String[] args) {
@@ -9,17 +13,246 @@ public class Main {
         int episodes = 10010000;        // liczba epizodów treningu
         double epsilonDecay = 0.9999995; // współczynnik zanikania epsilon
         double minEpsilon = 0.01;    // dolna granica epsilon
+        // --opponents=pool: trening z pulą przeciwników (losowy, heurystyczny, self-play, minimax)
+        boolean opponentPool = "pool".equals(option(args, "--opponents", "random"));
+        if (opponentPool) {
+            episodes = 2_000_000;
+        }
+        // --episodes=N: liczba epizodów treningu; epsilon zanika do minimum po 60% epizodów
+        String episodesOption = option(args, "--episodes", null);
+        if (episodesOption != null) {
+            episodes = Integer.parseInt(episodesOption);
+        }
+        if (opponentPool || episodesOption != null) {
+            epsilonDecay = Math.pow(minEpsilon / epsilon, 1.0 / (0.6 * episodes));
+        }
+        // --replay=uniform|prioritized: uczenie z bufora doświadczeń (paczki po 16 przejść po każdym epizodzie),
+        // --replay-background: paczki aktualizowane w osobnym wątku równolegle z rozgrywaniem epizodów
+        String replayOption = option(args, "--replay", null);
+        boolean replayInBackground = Arrays.asList(args).contains("--replay-background");
+        // --pool-mcts=N: dodatkowy przeciwnik MCTS (N symulacji na ruch) w puli treningowej
+        String poolMctsOption = option(args, "--pool-mcts", null);
+        // --early-stop[=W]: zatrzymanie treningu, gdy strategia zachłanna zmienia się w najwyżej 1% stanów
+        // przez 3 kolejne okna po W epizodów (domyślnie 1/50 epizodów); --early-stop-eval=G: także gdy wynik
+        // G partii oceniających z losowym przeciwnikiem nie rośnie przez 3 kolejne okna
+        String earlyStopOption = Arrays.asList(args).contains("--early-stop")
+                ? String.valueOf(Math.max(1, episodes / 50)) : option(args, "--early-stop", null);
+        // --lambda=L | --n-step=N: ruchy partii aktualizowane na końcu epizodu zwrotem λ albo n-krokowym
+        // zamiast aktualizacji 1-krokowej po każdym ruchu (nie łączy się z --replay)
+        String lambdaOption = option(args, "--lambda", null);
+        String nStepOption = option(args, "--n-step", null);
+        EpisodeTrace trace = (nStepOption != null) ? EpisodeTrace.nStep(Integer.parseInt(nStepOption))
+                : (lambdaOption != null) ? EpisodeTrace.lambda(Double.parseDouble(lambdaOption)) : null;
+        // --seed=N: ziarno treningu – ten sam wynik przy tym samym ziarnie (wielowątkowo: z --sync=sharded)
+        String seedOption = option(args, "--seed", null);
+        // --size=N [--k=K] [--max-states=M]: trening na planszy N×N z K w linii (rzadka tablica Q, limit M wierszy)
+        String sizeOption = option(args, "--size", null);
+        if (sizeOption != null) {
+            int size = Integer.parseInt(sizeOption);
+            int k = Integer.parseInt(option(args, "--k", String.valueOf(Math.min(size, 4))));
+            int maxStates = Integer.parseInt(option(args, "--max-states", "0"));
+            int gridEpisodes = (episodesOption != null) ? episodes : 1_000_000;
+            trainGrid(size, k, gridEpisodes, maxStates, seedOption, alpha, gamma, epsilon, minEpsilon);
+            return;
+        }
+        // --sweep=SPEC [--sweep-samples=N] [--sweep-eval=G]: przeszukiwanie hiperparametrów, np.
+        // --sweep="alpha=0.05,0.1,0.2;gamma=0.9,0.99" (siatka) lub --sweep="alpha=0.01..0.5" --sweep-samples=20;
+        // każda konfiguracja trenuje --episodes epizodów (domyślnie 200 000) na --threads wątkach (domyślnie wszystkie rdzenie)
+        String sweepOption = option(args, "--sweep", null);
+        if (sweepOption != null) {
+            long sweepSeed = Long.parseLong(seedOption != null ? seedOption : "1");
+            List<HyperparameterSweep.Config> configs = HyperparameterSweep.parse(sweepOption,
+                    Integer.parseInt(option(args, "--sweep-samples", "0")), sweepSeed);
+            int sweepThreads = Integer.parseInt(option(args, "--threads",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            HyperparameterSweep sweep = new HyperparameterSweep((episodesOption != null) ? episodes : 200_000, sweepThreads);
+            sweep.setEvaluation(Integer.parseInt(option(args, "--sweep-eval", "10000")), 4);
+            sweep.setOpponentPool(opponentPool);
+            sweep.setSeed(sweepSeed);
+            System.out.printf("Przeszukiwanie: %d konfiguracji, %d wątków%n", configs.size(), sweepThreads);
+            List<HyperparameterSweep.Result> results = sweep.run(configs, r -> System.out.printf(
+                    "%s: wynik %.2f%% po %d epizodach%s%n", r.config(), 100 * r.score(), r.episodes(),
+                    r.pruned() ? " (przerwano)" : ""));
+            HyperparameterSweep.printTable(results);
+            return;
+        }
+        // --symmetry: stany symetryczne dzielą jeden wiersz tablicy Q (765 zamiast 19683 stanów)
+        boolean symmetric = Arrays.asList(args).contains("--symmetry");
+        // --afterstates: jedna wartość na planszę po ruchu agenta zamiast 9 wartości Q na stan
+        boolean afterstates = Arrays.asList(args).contains("--afterstates");
+        // --threads=N: trening wielowątkowy, --sync=global|striped|cas|sharded: synchronizacja tablicy Q
+        int threads = Integer.parseInt(option(args, "--threads", "1"));
+        ParallelTrainer.SyncMode syncMode = parseSyncMode(option(args, "--sync", "striped"));
+
+        // --scaling: tylko pomiar skalowania treningu wielowątkowego
+        if (Arrays.asList(args).contains("--scaling")) {
+            int maxThreads = Math.max(threads, Runtime.getRuntime().availableProcessors());
+            ParallelTrainer.scalingReport(1_000_000, maxThreads, syncMode);
+            return;
+        }
+
+        String suffix = (symmetric ? "_sym" : "") + (afterstates ? "_after" : "");
+        String qTableFilename = "qtable" + suffix + ".dat";
+        // --resume: wznowienie treningu z ostatniego punktu kontrolnego (katalog --checkpoints=DIR)
+        boolean resume = Arrays.asList(args).contains("--resume");
+        String checkpointDir = option(args, "--checkpoints", "checkpoints" + suffix);
+        // --serve[=port]: zamiast gry w konsoli serwer wielu równoczesnych gier (GameServer)
+        int servePort = Arrays.asList(args).contains("--serve") ? GameServer.DEFAULT_PORT
+                : Integer.parseInt(option(args, "--serve", "0"));
+
+        // --solver: gra przeciwko dokładnemu solverowi (minimax) zamiast agenta Q-learning
+        if (Arrays.asList(args).contains("--solver")) {
+            new TicTacToeGame(new MinimaxSolver()).play();
+            return;
+        }
+
+        // --mapped: gra bezpośrednio z pliku tablicy Q odwzorowanego w pamięci (bez wczytywania i treningu)
+        if (Arrays.asList(args).contains("--mapped")) {
+            try {
+                QLearningAgent served = QLearningAgent.openMapped(qTableFilename);
+                System.out.println("Odwzorowano Q-tablicę z: " + qTableFilename);
+                if (servePort > 0) {
+                    serveGames(served, servePort);
+                } else {
+                    new TicTacToeGame(served).play();
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Nie udało się odwzorować Q-tablicy: " + e.getMessage());
+            }
+        }
+
+        // --lazy[=P]: gra z pliku tablicy Q wczytywanego stronami przy pierwszym dostępie (najwyżej P stron w pamięci)
+        String lazyOption = Arrays.asList(args).contains("--lazy") ? "16" : option(args, "--lazy", null);
+        if (lazyOption != null) {
+            try {
+                QLearningAgent served = QLearningAgent.openLazy(qTableFilename, Integer.parseInt(lazyOption));
+                System.out.println("Otwarto Q-tablicę stronami z: " + qTableFilename);
+                if (servePort > 0) {
+                    serveGames(served, servePort);
+                } else {
+                    new TicTacToeGame(served).play();
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Nie udało się otworzyć Q-tablicy: " + e.getMessage());
+            }
+        }
+
+        // --compile: eksport wytrenowanej tablicy Q do skompilowanej strategii (ruch dla każdego stanu) z weryfikacją;
+        // kod wyjścia 1, jeśli strategia różni się od strategii zachłannej agenta w którymkolwiek stanie
+        String policyFilename = "policy" + suffix + ".dat";
+        if (Arrays.asList(args).contains("--compile")) {
+            QLearningAgent compiled = new QLearningAgent(alpha, gamma, 0.0, symmetric, afterstates);
+            if (!compiled.loadQTable(qTableFilename)) {
+                System.err.println("Brak Q-tablicy do eksportu: " + qTableFilename);
+                System.exit(2);
+            }
+            CompiledPolicy policy = CompiledPolicy.compile(compiled);
+            try {
+                policy.save(policyFilename);
+            } catch (IOException e) {
+                System.err.println("Błąd zapisu strategii: " + e.getMessage());
+                System.exit(2);
+            }
+            // weryfikowany jest zapisany plik, a nie tablica w pamięci
+            int mismatches;
+            try {
+                mismatches = CompiledPolicy.load(policyFilename).verify(compiled);
+            } catch (IOException e) {
+                System.err.println("Zapisana strategia jest niepoprawna: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            System.out.printf("Zapisano strategię do: %s (%d stanów, różnice ze strategią agenta: %d)%n",
+                    policyFilename, policy.size(), mismatches);
+            System.exit(mismatches == 0 ? 0 : 1);
+        }
+
+        // --compiled: gra ze skompilowanej strategii (plik z --compile) bez tablicy Q
+        if (Arrays.asList(args).contains("--compiled")) {
+            try {
+                CompiledPolicy policy = CompiledPolicy.load(policyFilename);
+                System.out.println("Wczytano strategię z: " + policyFilename);
+                if (servePort > 0) {
+                    serveGames(policy, servePort);
+                } else {
+                    new TicTacToeGame(policy).play();
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Nie udało się wczytać strategii: " + e.getMessage());
+            }
+        }
+
+        // --evaluate[=N]: ocena zapisanej tablicy Q bez gry – N partii z każdym przeciwnikiem (domyślnie 1 000 000)
+        // i wszystkie linie gry przeciwnika; kod wyjścia 1, jeśli agent przegrywa którąkolwiek linię
+        String evaluateOption = Arrays.asList(args).contains("--evaluate") ? "1000000" : option(args, "--evaluate", null);
+        if (evaluateOption != null) {
+            QLearningAgent evaluated = new QLearningAgent(alpha, gamma, 0.0, symmetric, afterstates);
+            if (!evaluated.loadQTable(qTableFilename)) {
+                System.err.println("Brak Q-tablicy do oceny: " + qTableFilename);
+                System.exit(2);
+            }
+            boolean passed = evaluate(evaluated, Long.parseLong(evaluateOption),
+                    Long.parseLong(seedOption != null ? seedOption : "1"));
+            System.exit(passed ? 0 : 1);
+        }
 
         // Tworzymy agenta
-        QLearningAgent agent = new QLearningAgent(alpha, gamma, epsilon);
+        QLearningAgent agent = new QLearningAgent(alpha, gamma, epsilon, symmetric, afterstates);
         Scanner scanner = new Scanner(System.in);
-        String qTableFilename = "qtable.dat";
-        boolean loaded = agent.loadQTable(qTableFilename);
+        boolean loaded = !resume && agent.loadQTable(qTableFilename);
 
         if (!loaded) {
             System.out.println("Brak zapisanej Q-tablicy. Rozpoczynam trening...");
-            TicTacToeTrainer trainer = new TicTacToeTrainer(agent, episodes, epsilonDecay, minEpsilon);
-            trainer.train();
+            // --metrics=plik.csv|plik.jsonl: migawki metryk treningu do pliku (zawsze dostępne przez JMX)
+            TrainingMetrics metrics = openMetrics(option(args, "--metrics", null));
+            if (threads > 1) {
+                if (opponentPool || replayOption != null || earlyStopOption != null || trace != null) {
+                    System.out.println("Pula przeciwników, bufor doświadczeń, zwroty wielokrokowe i wczesne zatrzymanie są dostępne tylko w treningu jednowątkowym.");
+                }
+                ParallelTrainer trainer = new ParallelTrainer(agent, episodes, epsilonDecay, minEpsilon, threads, syncMode);
+                trainer.setMetrics(metrics);
+                if (seedOption != null) {
+                    trainer.setSeed(Long.parseLong(seedOption));
+                }
+                trainer.train();
+            } else {
+                TicTacToeTrainer trainer = new TicTacToeTrainer(agent, episodes, epsilonDecay, minEpsilon);
+                trainer.setMetrics(metrics);
+                if (opponentPool) {
+                    OpponentPool pool = OpponentPool.curriculum(agent);
+                    if (poolMctsOption != null) {
+                        MctsAgent mcts = new MctsAgent(Integer.parseInt(poolMctsOption));
+                        if (seedOption != null) {
+                            mcts.setSeed(Long.parseLong(seedOption) + 2);
+                        }
+                        pool.add("mcts", mcts, 0.0, 0.2);
+                    }
+                    trainer.setOpponentPool(pool);
+                }
+                if (replayOption != null) {
+                    ReplayBuffer.Sampling sampling = replayOption.equals("prioritized")
+                            ? ReplayBuffer.Sampling.PRIORITIZED : ReplayBuffer.Sampling.UNIFORM;
+                    trainer.setReplayBuffer(new ReplayBuffer(1 << 16, sampling), 16, replayInBackground);
+                }
+                if (trace != null && replayOption != null) {
+                    System.out.println("Zwroty wielokrokowe nie łączą się z buforem doświadczeń – pomijam --lambda/--n-step.");
+                } else if (trace != null) {
+                    trainer.setEpisodeTrace(trace);
+                }
+                if (earlyStopOption != null) {
+                    ConvergenceMonitor convergence = new ConvergenceMonitor(agent, Integer.parseInt(earlyStopOption), 3, 0.01);
+                    convergence.setEvaluation(Integer.parseInt(option(args, "--early-stop-eval", "0")), 0.002);
+                    trainer.setConvergenceMonitor(convergence);
+                }
+                if (seedOption != null) {
+                    trainer.setSeed(Long.parseLong(seedOption));
+                }
+                trainWithCheckpoints(trainer, agent, checkpointDir, resume);
+            }
+            closeMetrics(metrics);
             // Zapytajmy, czy zapisać Q-tablicę po treningu
 
             System.out.println("Trening zakończony. Czy zapisać Q-tablicę? (t/n)");
@@ -35,8 +268,182 @@ public class Main {
             System.out.println("Wczytano istniejącą Q-tablicę. Pomijam trening.");
         }
 
+        // --mcts[=N]: gra przeciwko MCTS (N symulacji na ruch, domyślnie 1000) z wartościami Q agenta jako
+        // rozkładem a priori; --mcts-threads=T: T niezależnych drzew, --think-ms=T: budżet czasu na ruch
+        String mctsOption = Arrays.asList(args).contains("--mcts") ? "1000" : option(args, "--mcts", null);
+        if (mctsOption != null) {
+            agent.setEpsilon(0.0);
+            int mctsThreads = Integer.parseInt(option(args, "--mcts-threads", "1"));
+            try (MctsAgent mcts = new MctsAgent(Integer.parseInt(mctsOption), mctsThreads, agent)) {
+                mcts.setThinkTime(Long.parseLong(option(args, "--think-ms", "0")));
+                if (servePort > 0) {
+                    serveGames(mcts, servePort);
+                } else {
+                    new TicTacToeGame(mcts).play();
+                }
+                System.out.printf("MCTS: %d symulacji, %.0f symulacji/s%n", mcts.totalPlayouts(), mcts.playoutsPerSecond());
+            }
+            return;
+        }
+
+        if (servePort > 0) {
+            agent.setEpsilon(0.0);
+            serveGames(agent, servePort);
+            return;
+        }
+
         // Uruchamiamy interaktywną rozgrywkę człowiek kontra AI
         TicTacToeGame game = new TicTacToeGame(agent);
         game.play();
     }
+
+    /**
+     * Zwraca wartość opcji w postaci --nazwa=wartość.
+     * @param args argumenty programu
+     * @param name nazwa opcji (z --)
+     * @param defaultValue wartość domyślna, gdy opcja nie została podana
+     * @return wartość opcji
+     */
+    private static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Trenuje agenta na planszy N×N z K w linii przeciwko losowemu przeciwnikowi
+     * i wypisuje przepustowość oraz rozmiar tablicy Q.
+     */
+    private static void trainGrid(int size, int k, int episodes, int maxStates, String seed,
+                                  double alpha, double gamma, double epsilon, double minEpsilon) {
+        SparseQTable qTable = new SparseQTable(size * size, maxStates);
+        GridAgent agent = new GridAgent(alpha, gamma, epsilon, qTable);
+        double decay = Math.pow(minEpsilon / epsilon, 1.0 / (0.6 * episodes));
+        GridTrainer trainer = new GridTrainer(agent, size, k, episodes, decay, minEpsilon);
+        trainer.setReportInterval(Math.max(1, episodes / 10));
+        if (seed != null) {
+            trainer.setSeed(Long.parseLong(seed));
+        }
+        double throughput = trainer.train();
+        System.out.printf("Plansza %d×%d, K=%d: %d epizodów, %.0f epizodów/s, %d stanów w tablicy Q (%.1f MB), "
+                        + "usunięte wiersze: %d%n",
+                size, size, k, episodes, throughput, qTable.size(), qTable.memoryBytes() / 1e6, qTable.evictions());
+    }
+
+    /**
+     * Rozgrywa turnieje agenta z przeciwnikiem losowym, heurystycznym i solverem oraz przechodzi
+     * wszystkie linie gry przeciwnika, gdy agent gra X i gdy gra O.
+     * @return true, jeśli agent nie przegrywa żadnej linii
+     */
+    private static boolean evaluate(QLearningAgent agent, long games, long seed) {
+        PolicyEvaluator evaluator = new PolicyEvaluator();
+        MinimaxSolver solver = new MinimaxSolver();
+        try {
+            System.out.println("Agent – losowy:       " + evaluator.tournament(PolicyEvaluator.greedy(agent),
+                    PolicyEvaluator.random(), games, seed));
+            System.out.println("Agent – heurystyczny: " + evaluator.tournament(PolicyEvaluator.greedy(agent),
+                    PolicyEvaluator.heuristic(), games, seed));
+            System.out.println("Agent – minimax:      " + evaluator.tournament(PolicyEvaluator.greedy(agent),
+                    s -> solver, games, seed));
+        } finally {
+            evaluator.shutdown();
+        }
+        PolicyEvaluator.ExhaustiveResult asX = PolicyEvaluator.exhaustive(agent, (byte) 1);
+        PolicyEvaluator.ExhaustiveResult asO = PolicyEvaluator.exhaustive(agent, (byte) 2);
+        System.out.println("Wszystkie linie, agent X: " + asX);
+        System.out.println("Wszystkie linie, agent O: " + asO);
+        return asX.neverLoses() && asO.neverLoses();
+    }
+
+    /**
+     * Uruchamia serwer gier na interfejsie lokalnym i obsługuje połączenia do zakończenia programu.
+     */
+    private static void serveGames(MovePolicy policy, int port) {
+        try (GameServer server = new GameServer(policy, port)) {
+            System.out.println("Serwer gier nasłuchuje na 127.0.0.1:" + server.port() + " (protokół: NEW, MOVE n, QUIT)");
+            server.run();
+        } catch (IOException e) {
+            System.err.println("Błąd serwera gier: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trenuje agenta z punktami kontrolnymi zapisywanymi w tle co 1 000 000 epizodów;
+     * w trybie wznowienia najpierw odtwarza tablicę Q, epsilon, licznik epizodów i ziarno.
+     */
+    private static void trainWithCheckpoints(TicTacToeTrainer trainer, QLearningAgent agent,
+                                             String checkpointDir, boolean resume) {
+        if (resume) {
+            try {
+                Checkpointer.State state = Checkpointer.restore(checkpointDir, agent);
+                if (state != null) {
+                    trainer.resume(state);
+                    System.out.println("Wznawiam trening od epizodu " + (state.episode() + 1) + " (" + checkpointDir + ")");
+                } else {
+                    System.out.println("Brak punktu kontrolnego w " + checkpointDir + ". Trening od początku.");
+                }
+            } catch (IOException e) {
+                System.err.println("Nie udało się wczytać punktu kontrolnego: " + e.getMessage());
+            }
+        }
+        Checkpointer checkpointer = null;
+        try {
+            checkpointer = new Checkpointer(checkpointDir, agent, 20);
+            trainer.setCheckpointer(checkpointer, 1_000_000);
+        } catch (IOException e) {
+            System.err.println("Nie udało się utworzyć katalogu punktów kontrolnych, trening bez punktów kontrolnych: "
+                    + e.getMessage());
+        }
+        trainer.train();
+        if (checkpointer != null) {
+            try {
+                checkpointer.close();
+            } catch (IOException e) {
+                System.err.println("Błąd zamykania punktów kontrolnych: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tworzy metryki treningu i rejestruje je w JMX (podgląd np. w JConsole);
+     * z opcją --metrics=plik migawki są zapisywane także do pliku (.csv lub JSON Lines).
+     */
+    private static TrainingMetrics openMetrics(String filename) {
+        TrainingMetrics metrics = new TrainingMetrics(10000);
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            System.err.println("Nie udało się zarejestrować metryk w JMX: " + e.getMessage());
+        }
+        if (filename != null) {
+            try {
+                metrics.setSink(MetricsSink.open(filename));
+                System.out.println("Metryki treningu zapisywane do: " + filename);
+            } catch (IOException e) {
+                System.err.println("Nie udało się otworzyć pliku metryk: " + e.getMessage());
+            }
+        }
+        return metrics;
+    }
+
+    private static void closeMetrics(TrainingMetrics metrics) {
+        try {
+            metrics.unregisterMBean();
+            metrics.close();
+        } catch (JMException | IOException e) {
+            System.err.println("Błąd zamykania metryk: " + e.getMessage());
+        }
+    }
+
+    private static ParallelTrainer.SyncMode parseSyncMode(String value) {
+        return switch (value) {
+            case "global" -> ParallelTrainer.SyncMode.GLOBAL_LOCK;
+            case "cas" -> ParallelTrainer.SyncMode.CAS;
+            case "sharded" -> ParallelTrainer.SyncMode.SHARDED;
+            default -> ParallelTrainer.SyncMode.STRIPED_LOCKS;
+        };
+    }
 }
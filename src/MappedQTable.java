@@ -0,0 +1,64 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Tablica Q tylko do odczytu, serwowana bezpośrednio z pliku odwzorowanego w pamięci
+ * ({@link QTableFile#map}). Nie kopiuje danych na stertę – system operacyjny wczytuje
+ * strony pliku przy pierwszym dostępie.
+ */
+public class MappedQTable implements QTable {
+    private final QTableFile.Header header;
+    private final ByteBuffer data;
+    private final int numActions;
+    private final QTableFile.ValueType valueType;
+    private final double scale;
+
+    /**
+     * Tworzy widok tablicy Q na odwzorowanych danych.
+     * @param header nagłówek pliku
+     * @param data sekcja danych (little-endian)
+     */
+    MappedQTable(QTableFile.Header header, ByteBuffer data) {
+        this.header = header;
+        this.data = data;
+        this.numActions = header.numActions();
+        this.valueType = header.valueType();
+        this.scale = header.scale();
+    }
+
+    /**
+     * Zwraca nagłówek pliku, z którego pochodzi tablica.
+     * @return nagłówek
+     */
+    public QTableFile.Header header() {
+        return header;
+    }
+
+    @Override
+    public int numStates() {
+        return header.numStates();
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public double get(int state, int action) {
+        int i = state * numActions + action;
+        return switch (valueType) {
+            case FLOAT64 -> data.getDouble(i << 3);
+            case FLOAT32 -> data.getFloat(i << 2);
+            case INT8 -> data.get(i) * scale;
+        };
+    }
+
+    /**
+     * Tablica odwzorowana z pliku jest tylko do odczytu.
+     * @throws UnsupportedOperationException zawsze
+     */
+    @Override
+    public void set(int state, int action, double value) {
+        throw new UnsupportedOperationException("Tablica Q odwzorowana z pliku jest tylko do odczytu");
+    }
+}
@@ -0,0 +1,403 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gracz Monte Carlo Tree Search (UCT) do gry w kółko-krzyżyk 3 × 3 z tym samym kontraktem wyboru ruchu
+ * co agent Q-learning ({@link MovePolicy}), więc może grać w {@link TicTacToeGame}, w {@link GameServer}
+ * i jako przeciwnik w puli treningowej ({@link OpponentPool}).
+ * <p>
+ * Węzły drzewa są przechowywane w tablicach prymitywnych (pula węzłów, bez obiektu na węzeł),
+ * a tablica transpozycji indeksowana indeksem stanu sprawia, że różne kolejności ruchów prowadzące
+ * do tego samego układu planszy dzielą jeden węzeł. Przeszukiwanie wykonuje ruchy na {@link Board}
+ * ({@code makeMove}/{@code undoMove}), symulacje do końca partii są losowe, a budżet to liczba symulacji
+ * albo czas na ruch.
+ * <p>
+ * Z agentem Q-learning jako źródłem wiedzy wstępnej wybór ruchu w drzewie używa reguły PUCT z rozkładem
+ * a priori softmax(Q / {@value #PRIOR_TEMPERATURE}) po dozwolonych ruchach. Przy kilku wątkach każdy
+ * wątek buduje własne drzewo (root parallelism), a ruch wybierany jest według sumy odwiedzin z korzenia.
+ * Metoda {@link #chooseAction} nie może być wywoływana równocześnie z wielu wątków.
+ */
+public class MctsAgent implements MovePolicy, AutoCloseable {
+    /** Pojemność puli węzłów – w grze 3 × 3 osiągalnych jest 5478 stanów */
+    private static final int MAX_NODES = 8192;
+    /** Stała eksploracji UCB1 (bez wiedzy wstępnej) */
+    private static final double UCB_C = 1.4;
+    /** Stała eksploracji PUCT (z wiedzą wstępną) */
+    private static final double PUCT_C = 2.0;
+    /** Temperatura softmax wartości Q przy wyznaczaniu rozkładu a priori */
+    private static final double PRIOR_TEMPERATURE = 0.25;
+    /** Co ile symulacji sprawdzany jest zegar przy budżecie czasowym */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    /** Drzewo jednego wątku przeszukiwania: pula węzłów, tablica transpozycji i robocza plansza */
+    private static final class Tree {
+        /** Węzeł stanu (ważny, gdy stamp[stan] == generation) */
+        final int[] nodeOf = new int[Transitions.NUM_STATES];
+        final int[] stamp = new int[Transitions.NUM_STATES];
+        /** Numer bieżącego przeszukiwania – zmiana unieważnia całą tablicę transpozycji bez jej czyszczenia */
+        int generation;
+        /** Liczba odwiedzin węzła */
+        final int[] visits = new int[MAX_NODES];
+        /** Suma wyników symulacji z punktu widzenia gracza, którego ruch prowadził do węzła */
+        final double[] valueSum = new double[MAX_NODES];
+        /** Rozkład a priori ruchów: priors[węzeł * 9 + pole] */
+        final float[] priors = new float[MAX_NODES * 9];
+        int size;
+
+        final Board board = new Board();
+        /** Węzły i ruchy bieżącej ścieżki od korzenia */
+        final int[] pathNodes = new int[10];
+        final int[] pathMoves = new int[9];
+        /** Ruchy bieżącej symulacji (do cofnięcia) */
+        final int[] rolloutMoves = new int[9];
+        SplittableRandom rand = new SplittableRandom();
+
+        int lookup(int stateIndex) {
+            return (stamp[stateIndex] == generation) ? nodeOf[stateIndex] : -1;
+        }
+    }
+
+    private final int playouts;
+    private final QLearningAgent prior;
+    private final Tree[] trees;
+    /** Wątki pomocnicze dla drzew 1..n-1 (drzewo 0 przeszukuje wątek wywołujący), null przy jednym wątku */
+    private final ExecutorService pool;
+    private long thinkNanos;
+
+    /** Statystyki: łączna liczba symulacji i czas przeszukiwania */
+    private long totalPlayouts;
+    private long totalNanos;
+    private long lastPlayouts;
+    private long lastNanos;
+
+    /**
+     * Tworzy jednowątkowego gracza MCTS bez wiedzy wstępnej.
+     * @param playouts liczba symulacji na ruch
+     */
+    public MctsAgent(int playouts) {
+        this(playouts, 1, null);
+    }
+
+    /**
+     * Tworzy gracza MCTS.
+     * @param playouts liczba symulacji na ruch w każdym drzewie
+     * @param threads liczba wątków (niezależnych drzew)
+     * @param prior agent Q-learning, którego wartości Q wyznaczają rozkład a priori ruchów (lub null)
+     */
+    public MctsAgent(int playouts, int threads, QLearningAgent prior) {
+        if (playouts < 1 || threads < 1) {
+            throw new IllegalArgumentException("Niepoprawny budżet MCTS: " + playouts + " symulacji, " + threads + " wątków");
+        }
+        this.playouts = playouts;
+        this.prior = prior;
+        this.trees = new Tree[threads];
+        for (int t = 0; t < threads; t++) {
+            trees[t] = new Tree();
+        }
+        this.pool = (threads > 1) ? Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread thread = new Thread(r, "mcts-search");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Ustawia budżet czasowy: przeszukiwanie trwa podany czas niezależnie od liczby symulacji.
+     * @param millis czas na ruch w milisekundach (0 = budżet liczby symulacji)
+     */
+    public void setThinkTime(long millis) {
+        this.thinkNanos = millis * 1_000_000L;
+    }
+
+    /**
+     * Ustawia ziarno – każde drzewo dostaje własny generator wydzielony z generatora głównego,
+     * więc przy budżecie liczby symulacji wybór ruchu jest powtarzalny także przy wielu wątkach.
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        for (Tree tree : trees) {
+            tree.rand = root.split();
+        }
+    }
+
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        long start = System.nanoTime();
+        long deadline = (thinkNanos > 0) ? start + thinkNanos : 0;
+        long done = 0;
+        if (pool == null) {
+            done = search(trees[0], boardIndex, deadline);
+        } else {
+            List<Future<Long>> futures = new ArrayList<>(trees.length - 1);
+            for (int t = 1; t < trees.length; t++) {
+                Tree tree = trees[t];
+                futures.add(pool.submit(() -> search(tree, boardIndex, deadline)));
+            }
+            done += search(trees[0], boardIndex, deadline);
+            try {
+                for (Future<Long> future : futures) {
+                    done += future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Przerwano przeszukiwanie MCTS", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Błąd w wątku przeszukiwania MCTS", e.getCause());
+            }
+        }
+        lastNanos = System.nanoTime() - start;
+        lastPlayouts = done;
+        totalNanos += lastNanos;
+        totalPlayouts += done;
+        return mostVisited(boardIndex);
+    }
+
+    /**
+     * Zwraca ruch z korzenia o największej sumie odwiedzin we wszystkich drzewach
+     * (przy równych – pole o najmniejszym indeksie).
+     */
+    private int mostVisited(int boardIndex) {
+        int empty = Transitions.emptyMask(boardIndex);
+        byte player = playerToMove(boardIndex);
+        int best = Integer.numberOfTrailingZeros(empty);
+        long bestVisits = -1;
+        for (; empty != 0; empty &= empty - 1) {
+            int a = Integer.numberOfTrailingZeros(empty);
+            int child = Transitions.next(boardIndex, a, player);
+            long n = 0;
+            for (Tree tree : trees) {
+                int node = tree.lookup(child);
+                if (node >= 0) n += tree.visits[node];
+            }
+            if (n > bestVisits) {
+                bestVisits = n;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Buduje od nowa drzewo dla stanu korzenia i wykonuje symulacje do wyczerpania budżetu.
+     * @return liczba wykonanych symulacji
+     */
+    private long search(Tree tree, int rootState, long deadline) {
+        tree.generation++;
+        tree.size = 0;
+        setUp(tree.board, rootState);
+        expand(tree, rootState);
+        long done = 0;
+        if (deadline > 0) {
+            do {
+                for (int i = 0; i < CLOCK_CHECK_INTERVAL; i++) {
+                    playout(tree, rootState);
+                }
+                done += CLOCK_CHECK_INTERVAL;
+            } while (System.nanoTime() < deadline);
+        } else {
+            for (; done < playouts; done++) {
+                playout(tree, rootState);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Jedna iteracja MCTS: wybór ścieżki w drzewie, dodanie jednego węzła, losowa symulacja
+     * i aktualizacja statystyk węzłów na ścieżce.
+     */
+    private void playout(Tree tree, int rootState) {
+        Board board = tree.board;
+        byte rootPlayer = playerToMove(rootState);
+        byte player = rootPlayer;
+        int node = 0;
+        int depth = 0;
+        tree.pathNodes[0] = 0;
+        byte result;
+
+        while (true) {
+            int state = board.getStateIndex();
+            result = Transitions.status(state);
+            if (result != Transitions.IN_PLAY) {
+                break;
+            }
+            int action = select(tree, node, state, player);
+            board.makeMove(action, player);
+            tree.pathMoves[depth] = action;
+            int childState = board.getStateIndex();
+            int child = tree.lookup(childState);
+            player = (player == 1) ? (byte) 2 : (byte) 1;
+            if (child < 0) {
+                tree.pathNodes[++depth] = expand(tree, childState);
+                result = rollout(tree, player);
+                break;
+            }
+            tree.pathNodes[++depth] = child;
+            node = child;
+        }
+
+        for (int i = 0; i <= depth; i++) {
+            int n = tree.pathNodes[i];
+            if (n < 0) {
+                continue;
+            }
+            byte mover = ((i & 1) == 1) ? rootPlayer : (rootPlayer == 1 ? (byte) 2 : (byte) 1);
+            tree.visits[n]++;
+            tree.valueSum[n] += (result == Transitions.DRAW) ? 0.0 : (result == mover ? 1.0 : -1.0);
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            board.undoMove(tree.pathMoves[i]);
+        }
+    }
+
+    /**
+     * Wybiera ruch w węźle: UCB1 (nieodwiedzony ruch ma pierwszeństwo) albo PUCT z rozkładem a priori.
+     */
+    private int select(Tree tree, int node, int state, byte player) {
+        int empty = Transitions.emptyMask(state);
+        double sqrtParent = Math.sqrt(tree.visits[node]);
+        double logParent = Math.log(Math.max(1, tree.visits[node]));
+        int base = node * 9;
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (; empty != 0; empty &= empty - 1) {
+            int a = Integer.numberOfTrailingZeros(empty);
+            int child = tree.lookup(Transitions.next(state, a, player));
+            int n = (child < 0) ? 0 : tree.visits[child];
+            double q = (n == 0) ? 0.0 : tree.valueSum[child] / n;
+            double score;
+            if (prior != null) {
+                score = q + PUCT_C * tree.priors[base + a] * sqrtParent / (1 + n);
+            } else if (n == 0) {
+                return a;
+            } else {
+                score = q + UCB_C * Math.sqrt(logParent / n);
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Dodaje węzeł stanu do puli i tablicy transpozycji.
+     * @return numer węzła albo -1, gdy pula jest pełna (stan zostaje wtedy tylko zasymulowany)
+     */
+    private int expand(Tree tree, int state) {
+        if (tree.size == MAX_NODES) {
+            return -1;
+        }
+        int node = tree.size++;
+        tree.nodeOf[state] = node;
+        tree.stamp[state] = tree.generation;
+        tree.visits[node] = 0;
+        tree.valueSum[node] = 0.0;
+        if (prior != null && Transitions.status(state) == Transitions.IN_PLAY) {
+            setPriors(tree.priors, node * 9, state);
+        }
+        return node;
+    }
+
+    /**
+     * Wyznacza rozkład a priori ruchów ze stanu: softmax wartości Q po pustych polach.
+     */
+    private void setPriors(float[] priors, int base, int state) {
+        int empty = Transitions.emptyMask(state);
+        double maxQ = Double.NEGATIVE_INFINITY;
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            maxQ = Math.max(maxQ, prior.getQ(state, Integer.numberOfTrailingZeros(rest)));
+        }
+        double sum = 0.0;
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            int a = Integer.numberOfTrailingZeros(rest);
+            double w = Math.exp((prior.getQ(state, a) - maxQ) / PRIOR_TEMPERATURE);
+            priors[base + a] = (float) w;
+            sum += w;
+        }
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            priors[base + Integer.numberOfTrailingZeros(rest)] /= (float) sum;
+        }
+    }
+
+    /**
+     * Losowa symulacja od bieżącego stanu planszy do końca partii; plansza wraca do stanu wyjściowego.
+     * @return wynik partii (X_WINS, O_WINS lub DRAW)
+     */
+    private static byte rollout(Tree tree, byte player) {
+        Board board = tree.board;
+        int count = 0;
+        byte result;
+        while ((result = Transitions.status(board.getStateIndex())) == Transitions.IN_PLAY) {
+            int empty = board.getEmptyMask();
+            for (int n = tree.rand.nextInt(Integer.bitCount(empty)); n > 0; n--) {
+                empty &= empty - 1;
+            }
+            int action = Integer.numberOfTrailingZeros(empty);
+            board.makeMove(action, player);
+            tree.rolloutMoves[count++] = action;
+            player = (player == 1) ? (byte) 2 : (byte) 1;
+        }
+        while (count > 0) {
+            board.undoMove(tree.rolloutMoves[--count]);
+        }
+        return result;
+    }
+
+    /**
+     * Ustawia planszę na stan o podanym indeksie (cyfry trójkowe indeksu to wartości pól).
+     */
+    private static void setUp(Board board, int stateIndex) {
+        board.clear();
+        for (int pos = 0, s = stateIndex; pos < 9; pos++, s /= 3) {
+            if (s % 3 != 0) {
+                board.makeMove(pos, (byte) (s % 3));
+            }
+        }
+    }
+
+    private static byte playerToMove(int stateIndex) {
+        return (Integer.bitCount(Transitions.emptyMask(stateIndex)) & 1) == 1 ? (byte) 1 : (byte) 2;
+    }
+
+    /**
+     * Zwraca liczbę symulacji na sekundę w ostatnim wyborze ruchu (suma wszystkich wątków).
+     * @return symulacje/s
+     */
+    public double lastPlayoutsPerSecond() {
+        return (lastNanos == 0) ? 0.0 : lastPlayouts * 1e9 / lastNanos;
+    }
+
+    /**
+     * Zwraca średnią liczbę symulacji na sekundę od utworzenia gracza (suma wszystkich wątków).
+     * @return symulacje/s
+     */
+    public double playoutsPerSecond() {
+        return (totalNanos == 0) ? 0.0 : totalPlayouts * 1e9 / totalNanos;
+    }
+
+    /**
+     * Zwraca łączną liczbę symulacji od utworzenia gracza.
+     * @return liczba symulacji
+     */
+    public long totalPlayouts() {
+        return totalPlayouts;
+    }
+
+    /**
+     * Zatrzymuje wątki pomocnicze przeszukiwania.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Ujście migawek metryk treningu ({@link TrainingMetrics.Snapshot}), np. plik CSV
+ * lub JSON Lines. Migawki są zapisywane raz na okno epizodów, a nie po każdym epizodzie.
+ */
+public interface MetricsSink extends Closeable {
+
+    /**
+     * Zapisuje jedną migawkę.
+     * @param snapshot migawka metryk
+     * @throws IOException w przypadku błędu zapisu
+     */
+    void write(TrainingMetrics.Snapshot snapshot) throws IOException;
+
+    /**
+     * Otwiera plik metryk; format wynika z rozszerzenia: {@code .csv} – CSV,
+     * każde inne – JSON Lines (jeden obiekt JSON w wierszu).
+     * @param filename ścieżka do pliku (nadpisywanego)
+     * @return ujście zapisujące do pliku
+     * @throws IOException w przypadku błędu otwarcia pliku
+     */
+    static MetricsSink open(String filename) throws IOException {
+        return filename.endsWith(".csv") ? new CsvMetricsSink(filename) : new JsonLinesMetricsSink(filename);
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * Dokładny solver kółko-krzyżyk 3 × 3 (negamax z zapamiętywaniem wyników).
+ * Przy tworzeniu obiektu przechodzi całe drzewo gry i dla każdego osiągalnego stanu
+ * zapisuje ocenę oraz najlepszy ruch, więc {@link #chooseAction} to jeden odczyt z tablicy.
+ * Służy jako doskonały przeciwnik oraz jako wzorzec do oceny wytrenowanych agentów.
+ */
+public class MinimaxSolver implements MovePolicy {
+    /** Liczba wszystkich układów planszy (3^9) */
+    private static final int NUM_STATES = 19683;
+    /** Znacznik stanu jeszcze nieobliczonego (lub nieosiągalnego) */
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /**
+     * Ocena stanu z punktu widzenia gracza, który ma ruch: dodatnia – wygrana,
+     * 0 – remis, ujemna – przegrana. Wartość bezwzględna to 1 + liczba pustych pól
+     * w chwili końca gry, dzięki czemu solver wybiera najszybszą wygraną i najdłuższą obronę.
+     */
+    private final byte[] score = new byte[NUM_STATES];
+    /** Najlepszy ruch dla stanu (-1 dla stanów końcowych i nieosiągalnych) */
+    private final byte[] bestMove = new byte[NUM_STATES];
+
+    /**
+     * Tworzy solver i rozwiązuje całą grę.
+     */
+    public MinimaxSolver() {
+        Arrays.fill(score, UNKNOWN);
+        Arrays.fill(bestMove, (byte) -1);
+        negamax(new Board(), (byte) 1);
+    }
+
+    /**
+     * Oblicza ocenę stanu dla gracza, który ma ruch, zapamiętując wyniki według indeksu stanu.
+     */
+    private int negamax(Board board, byte player) {
+        int index = board.getStateIndex();
+        if (score[index] != UNKNOWN) {
+            return score[index];
+        }
+        byte opponent = (player == 1) ? (byte) 2 : (byte) 1;
+        int result;
+        if (board.isWin(opponent)) {
+            result = -(1 + board.countEmpty());
+        } else if (board.isFull()) {
+            result = 0;
+        } else {
+            result = Integer.MIN_VALUE;
+            for (int empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+                int pos = Integer.numberOfTrailingZeros(empty);
+                board.makeMove(pos, player);
+                int value = -negamax(board, opponent);
+                board.undoMove(pos);
+                if (value > result) {
+                    result = value;
+                    bestMove[index] = (byte) pos;
+                }
+            }
+        }
+        score[index] = (byte) result;
+        return result;
+    }
+
+    /**
+     * Zwraca doskonały ruch dla gracza, który ma ruch w danym stanie.
+     * @param boardIndex indeks stanu planszy (Board.getStateIndex())
+     * @param fields tablica pól planszy (nieużywana – stan wynika z indeksu)
+     * @return indeks najlepszego pola (0-8) lub -1 dla stanu końcowego lub nieosiągalnego
+     */
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        return bestMove[boardIndex];
+    }
+
+    /**
+     * Zwraca teoretyczny wynik gry z danego stanu przy doskonałej grze obu stron.
+     * @param stateIndex indeks osiągalnego stanu
+     * @return 1 – wygrywa gracz, który ma ruch, 0 – remis, -1 – przegrywa
+     */
+    public int value(int stateIndex) {
+        return Integer.signum(score[stateIndex]);
+    }
+
+    /**
+     * Sprawdza, czy ruch zachowuje teoretyczny wynik gry (nie jest błędem).
+     * @param board plansza w stanie osiągalnym, niekońcowym
+     * @param action pole ruchu (puste)
+     * @return true, jeśli po ruchu wynik gry dla wykonującego ruch się nie pogarsza
+     */
+    public boolean isOptimal(Board board, int action) {
+        int index = board.getStateIndex();
+        byte player = board.playerToMove();
+        board.makeMove(action, player);
+        int after = -Integer.signum(score[board.getStateIndex()]);
+        board.undoMove(action);
+        return after == value(index);
+    }
+
+    /**
+     * Ocenia strategię: dla każdego osiągalnego, niekońcowego stanu, w którym ruch ma podany
+     * gracz, sprawdza, czy wybrany ruch zachowuje teoretyczny wynik gry. Strategie losowe
+     * (np. agent z epsilon &gt; 0) dają wynik losowy – do oceny należy użyć epsilon = 0.
+     * @param policy oceniana strategia
+     * @param player gracz, za którego gra strategia (1 = X, 2 = O)
+     * @return liczba ocenionych stanów i liczba stanów, w których ruch był optymalny
+     */
+    public PolicyScore scorePolicy(MovePolicy policy, byte player) {
+        int[] counts = new int[2];
+        scoreFrom(new Board(), (byte) 1, policy, player, counts, new boolean[NUM_STATES]);
+        return new PolicyScore(counts[0], counts[1]);
+    }
+
+    private void scoreFrom(Board board, byte toMove, MovePolicy policy, byte player, int[] counts, boolean[] visited) {
+        int index = board.getStateIndex();
+        if (visited[index] || bestMove[index] < 0) {
+            return;
+        }
+        visited[index] = true;
+        if (toMove == player) {
+            int action = policy.chooseAction(index, board.getFields());
+            counts[0]++;
+            if (action >= 0 && action < 9 && board.isEmpty(action) && isOptimal(board, action)) {
+                counts[1]++;
+            }
+        }
+        byte next = (toMove == 1) ? (byte) 2 : (byte) 1;
+        for (int empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+            int pos = Integer.numberOfTrailingZeros(empty);
+            board.makeMove(pos, toMove);
+            scoreFrom(board, next, policy, player, counts, visited);
+            board.undoMove(pos);
+        }
+    }
+
+    /**
+     * Wynik oceny strategii względem solvera.
+     * @param states liczba ocenionych stanów
+     * @param optimal liczba stanów, w których strategia wybrała ruch optymalny
+     */
+    public record PolicyScore(int states, int optimal) {
+
+        /**
+         * Zwraca odsetek ruchów optymalnych.
+         * @return wartość z przedziału [0, 1]
+         */
+        public double accuracy() {
+            return states == 0 ? 1.0 : optimal / (double) states;
+        }
+    }
+}
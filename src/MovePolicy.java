@@ -0,0 +1,15 @@
+/**
+ * Strategia wyboru ruchu w kółko-krzyżyk 3 × 3 – wspólny kontrakt agenta Q-learning,
+ * solvera i innych graczy komputerowych. Gracz wykonujący ruch wynika z układu pól
+ * (X zaczyna, więc przy równej liczbie symboli ruch ma X).
+ */
+public interface MovePolicy {
+
+    /**
+     * Wybiera ruch dla danego stanu planszy.
+     * @param boardIndex indeks stanu planszy (Board.getStateIndex())
+     * @param fields tablica pól planszy
+     * @return indeks wybranego pola (0-8)
+     */
+    int chooseAction(int boardIndex, byte[] fields);
+}
@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pula przeciwników treningowych z harmonogramem mieszania (curriculum).
+ * Każdy przeciwnik ma wagę początkową i końcową; waga w danej chwili jest interpolowana
+ * liniowo według postępu treningu, a przeciwnik kolejnego epizodu losowany proporcjonalnie do wag.
+ * Dla każdego przeciwnika zliczane są wygrane, porażki i remisy agenta.
+ */
+public class OpponentPool {
+    /** Przeciwnik w puli wraz ze statystykami */
+    private static final class Entry {
+        final String name;
+        final MovePolicy policy;
+        final double startWeight;
+        final double endWeight;
+        long wins;
+        long losses;
+        long draws;
+
+        Entry(String name, MovePolicy policy, double startWeight, double endWeight) {
+            this.name = name;
+            this.policy = policy;
+            this.startWeight = startWeight;
+            this.endWeight = endWeight;
+        }
+    }
+
+    /** Generator losowy puli (wybór przeciwnika i ruchy przeciwników losowych) */
+    private final Random rand = new Random();
+    private final List<Entry> entries = new ArrayList<>();
+    /** Zamrożone kopie agenta odświeżane co refreshInterval epizodów */
+    private final List<FrozenAgentPolicy> snapshots = new ArrayList<>();
+    /** Co ile epizodów odświeżane są zamrożone kopie agenta */
+    private int refreshInterval = 50_000;
+
+    /**
+     * Tworzy standardową pulę: na początku głównie przeciwnik losowy i heurystyczny,
+     * pod koniec także zamrożona kopia agenta i solver minimax, których agent nie pokona,
+     * ale od których uczy się nie przegrywać.
+     * @param agent trenowany agent (źródło kopii do self-play)
+     * @return pula przeciwników
+     */
+    public static OpponentPool curriculum(QLearningAgent agent) {
+        OpponentPool pool = new OpponentPool();
+        pool.add("losowy", new RandomPolicy(pool.rand), 0.6, 0.2);
+        pool.add("heurystyczny", new HeuristicPolicy(pool.rand), 0.4, 0.3);
+        pool.addSnapshot("self-play", agent, 0.0, 0.2);
+        pool.add("minimax", new MinimaxSolver(), 0.0, 0.3);
+        return pool;
+    }
+
+    /**
+     * Dodaje przeciwnika do puli.
+     * @param name nazwa w raporcie
+     * @param policy strategia przeciwnika
+     * @param startWeight waga na początku treningu
+     * @param endWeight waga na końcu treningu
+     */
+    public void add(String name, MovePolicy policy, double startWeight, double endWeight) {
+        if (startWeight < 0 || endWeight < 0) {
+            throw new IllegalArgumentException("Wagi przeciwnika nie mogą być ujemne: " + name);
+        }
+        entries.add(new Entry(name, policy, startWeight, endWeight));
+    }
+
+    /**
+     * Dodaje zamrożoną kopię agenta (self-play), odświeżaną co {@link #setRefreshInterval} epizodów.
+     * @param name nazwa w raporcie
+     * @param agent trenowany agent
+     * @param startWeight waga na początku treningu
+     * @param endWeight waga na końcu treningu
+     */
+    public void addSnapshot(String name, QLearningAgent agent, double startWeight, double endWeight) {
+        FrozenAgentPolicy snapshot = new FrozenAgentPolicy(agent);
+        snapshots.add(snapshot);
+        add(name, snapshot, startWeight, endWeight);
+    }
+
+    /**
+     * Ustawia, co ile epizodów odświeżane są zamrożone kopie agenta.
+     * @param refreshInterval liczba epizodów
+     */
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Ustawia ziarno generatora losowego puli.
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        rand.setSeed(seed);
+    }
+
+    /**
+     * Losuje przeciwnika proporcjonalnie do wag w danym momencie treningu.
+     * @param progress postęp treningu z przedziału [0, 1] (większe wartości traktowane jak 1)
+     * @return indeks przeciwnika w puli
+     */
+    public int pick(double progress) {
+        progress = Math.min(progress, 1.0);
+        double total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            total += weight(entries.get(i), progress);
+        }
+        double r = rand.nextDouble() * total;
+        for (int i = 0; i < entries.size() - 1; i++) {
+            r -= weight(entries.get(i), progress);
+            if (r < 0) {
+                return i;
+            }
+        }
+        return entries.size() - 1;
+    }
+
+    private static double weight(Entry entry, double progress) {
+        return entry.startWeight + (entry.endWeight - entry.startWeight) * progress;
+    }
+
+    /**
+     * Zwraca strategię przeciwnika.
+     * @param index indeks przeciwnika (z {@link #pick})
+     * @return strategia
+     */
+    public MovePolicy policy(int index) {
+        return entries.get(index).policy;
+    }
+
+    /**
+     * Zapisuje wynik epizodu przeciwko przeciwnikowi i w razie potrzeby odświeża kopie agenta.
+     * @param index indeks przeciwnika
+     * @param outcome wynik epizodu z punktu widzenia agenta
+     * @param episode numer epizodu
+     */
+    public void record(int index, TicTacToeTrainer.Outcome outcome, long episode) {
+        Entry entry = entries.get(index);
+        switch (outcome) {
+            case WIN -> entry.wins++;
+            case LOSS -> entry.losses++;
+            case DRAW -> entry.draws++;
+        }
+        if (episode % refreshInterval == 0) {
+            refreshSnapshots();
+        }
+    }
+
+    /**
+     * Kopiuje bieżącą tablicę Q agenta do wszystkich zamrożonych kopii (np. po wznowieniu treningu).
+     */
+    public void refreshSnapshots() {
+        for (FrozenAgentPolicy snapshot : snapshots) {
+            snapshot.refresh();
+        }
+    }
+
+    /**
+     * Wypisuje wyniki agenta przeciwko każdemu przeciwnikowi i zeruje liczniki.
+     */
+    public void printReport() {
+        System.out.println("przeciwnik        partie   wygrane  porażki   remisy");
+        for (Entry e : entries) {
+            long games = e.wins + e.losses + e.draws;
+            double n = Math.max(1, games);
+            System.out.printf("%-15s %8d %8.1f%% %7.1f%% %7.1f%%%n",
+                    e.name, games, 100 * e.wins / n, 100 * e.losses / n, 100 * e.draws / n);
+            e.wins = 0;
+            e.losses = 0;
+            e.draws = 0;
+        }
+    }
+}
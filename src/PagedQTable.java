@@ -0,0 +1,223 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Tablica Q wczytywana leniwie z pliku {@link QTableFile}: dane są podzielone na strony po
+ * {@value #ROWS_PER_PAGE} wierszy, a strona jest czytana z pliku (odczyt pozycyjny kanału) i dekodowana
+ * do {@code double[]} dopiero przy pierwszym dostępie do któregoś z jej wierszy. Na stercie trzymanych jest
+ * najwyżej {@code maxPages} niezmienionych stron – przy braku miejsca usuwana jest strona najdawniej użyta (LRU).
+ * <p>
+ * Zapis ({@link #set}) zmienia stronę w pamięci i przypina ją – zmienione strony nie są usuwane ani
+ * zapisywane z powrotem do pliku, więc tablica zachowuje się jak zwykła tablica Q, a plik pozostaje
+ * niezmieniony. Suma kontrolna pliku nie jest sprawdzana (wymagałaby przeczytania wszystkich danych).
+ * Wszystkie metody są synchronizowane – także odczyt zmienia zawartość pamięci podręcznej.
+ */
+public class PagedQTable implements QTable, Closeable {
+    /** Liczba wierszy na stronie */
+    public static final int ROWS_PER_PAGE = 64;
+    private static final int PAGE_SHIFT = 6;
+
+    private final FileChannel channel;
+    private final QTableFile.Header header;
+    private final int numStates;
+    private final int numActions;
+    private final int pageBytes;
+    /** Największa liczba niezmienionych stron w pamięci */
+    private final int maxPages;
+
+    /** Miejsce strony w pamięci podręcznej (-1 = strona niewczytana) */
+    private final int[] slotOfPage;
+    /** Wartości stron: pages[miejsce][wiersz w stronie * numActions + akcja] */
+    private double[][] pages = new double[0][];
+    private int[] pageOfSlot = new int[0];
+    private long[] lastUse = new long[0];
+    private boolean[] dirty = new boolean[0];
+    private int slots;
+    private int cleanPages;
+    private long clock;
+
+    /** Bufor odczytu strony z pliku */
+    private final ByteBuffer readBuffer;
+
+    private long pageLoads;
+    private long evictions;
+
+    /**
+     * Otwiera plik tablicy Q bez wczytywania danych (czytany jest tylko nagłówek).
+     * @param filename ścieżka do pliku
+     * @param maxPages największa liczba niezmienionych stron trzymanych w pamięci (co najmniej 1)
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego nagłówka
+     */
+    public PagedQTable(String filename, int maxPages) throws IOException {
+        if (maxPages < 1) {
+            throw new IllegalArgumentException("Pamięć podręczna musi mieć co najmniej jedną stronę: " + maxPages);
+        }
+        this.channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        try {
+            this.header = QTableFile.readHeader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.numStates = header.numStates();
+        this.numActions = header.numActions();
+        this.pageBytes = ROWS_PER_PAGE * numActions * header.valueType().bytes();
+        this.maxPages = maxPages;
+        this.slotOfPage = new int[(numStates + ROWS_PER_PAGE - 1) >>> PAGE_SHIFT];
+        Arrays.fill(slotOfPage, -1);
+        this.readBuffer = ByteBuffer.allocate(pageBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Zwraca nagłówek pliku, z którego pochodzi tablica.
+     * @return nagłówek
+     */
+    public QTableFile.Header header() {
+        return header;
+    }
+
+    @Override
+    public int numStates() {
+        return numStates;
+    }
+
+    @Override
+    public int numActions() {
+        return numActions;
+    }
+
+    @Override
+    public synchronized double get(int state, int action) {
+        int slot = slot(state);
+        return pages[slot][(state & (ROWS_PER_PAGE - 1)) * numActions + action];
+    }
+
+    @Override
+    public synchronized void set(int state, int action, double value) {
+        int slot = slot(state);
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            cleanPages--;
+        }
+        pages[slot][(state & (ROWS_PER_PAGE - 1)) * numActions + action] = value;
+    }
+
+    /**
+     * Zwraca miejsce strony wiersza w pamięci podręcznej, w razie potrzeby wczytując stronę.
+     */
+    private int slot(int state) {
+        int page = state >>> PAGE_SHIFT;
+        int slot = slotOfPage[page];
+        if (slot < 0) {
+            slot = load(page);
+        }
+        lastUse[slot] = ++clock;
+        return slot;
+    }
+
+    /**
+     * Wczytuje stronę z pliku do wolnego miejsca albo do miejsca najdawniej użytej niezmienionej strony.
+     */
+    private int load(int page) {
+        int slot;
+        if (cleanPages >= maxPages) {
+            slot = leastRecentlyUsedClean();
+            slotOfPage[pageOfSlot[slot]] = -1;
+            cleanPages--;
+            evictions++;
+        } else {
+            slot = slots++;
+            if (slot == pages.length) {
+                int capacity = Math.max(4, slot * 2);
+                pages = Arrays.copyOf(pages, capacity);
+                pageOfSlot = Arrays.copyOf(pageOfSlot, capacity);
+                lastUse = Arrays.copyOf(lastUse, capacity);
+                dirty = Arrays.copyOf(dirty, capacity);
+            }
+            pages[slot] = new double[ROWS_PER_PAGE * numActions];
+        }
+        read(page, pages[slot]);
+        pageOfSlot[slot] = page;
+        slotOfPage[page] = slot;
+        dirty[slot] = false;
+        cleanPages++;
+        pageLoads++;
+        return slot;
+    }
+
+    private int leastRecentlyUsedClean() {
+        int victim = -1;
+        for (int s = 0; s < slots; s++) {
+            if (!dirty[s] && (victim < 0 || lastUse[s] < lastUse[victim])) {
+                victim = s;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Czyta i dekoduje wiersze strony (ostatnia strona może być niepełna).
+     */
+    private void read(int page, double[] out) {
+        int rows = Math.min(ROWS_PER_PAGE, numStates - (page << PAGE_SHIFT));
+        ByteBuffer buf = readBuffer.clear().limit(rows * numActions * header.valueType().bytes());
+        long position = QTableFile.HEADER_SIZE + (long) page * pageBytes;
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) {
+                    throw new IOException("Nieoczekiwany koniec pliku tablicy Q");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie udało się wczytać strony " + page + " tablicy Q", e);
+        }
+        buf.flip();
+        double scale = header.scale();
+        for (int i = 0, n = rows * numActions; i < n; i++) {
+            out[i] = switch (header.valueType()) {
+                case FLOAT64 -> buf.getDouble();
+                case FLOAT32 -> buf.getFloat();
+                case INT8 -> buf.get() * scale;
+            };
+        }
+    }
+
+    /**
+     * Zwraca liczbę stron wczytanych z pliku (łącznie z ponownymi wczytaniami po usunięciu).
+     * @return liczba wczytań
+     */
+    public synchronized long pageLoads() {
+        return pageLoads;
+    }
+
+    /**
+     * Zwraca liczbę stron usuniętych z pamięci podręcznej.
+     * @return liczba usunięć
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Zwraca liczbę stron w pamięci (niezmienionych i przypiętych zmienionych).
+     * @return liczba stron
+     */
+    public synchronized int residentPages() {
+        return slots;
+    }
+
+    /**
+     * Zamyka plik. Strony już wczytane pozostają dostępne, odczyt kolejnych kończy się błędem.
+     * @throws IOException w przypadku błędu zamknięcia
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Wielowątkowy trening agenta Q-learning.
+ * Każdy wątek gra własne epizody na własnej planszy, z własnym generatorem losowym
+ * i własnym epsilon, a wszystkie wątki aktualizują wspólną tablicę Q.
+ * Generatory wątków są wyprowadzane z jednego ziarna ({@link #setSeed}); w trybie
+ * {@link SyncMode#SHARDED} to samo ziarno i ta sama liczba wątków dają identyczną co do bitu tablicę Q.
+ */
+public class ParallelTrainer {
+    /** Sposób synchronizacji dostępu do wspólnej tablicy Q */
+    public enum SyncMode {
+        /** Jedna blokada – aktualizacje szeregowane, semantyka jak QLearningAgent.update w jednym wątku */
+        GLOBAL_LOCK,
+        /** Blokady w paskach według indeksu stanu */
+        STRIPED_LOCKS,
+        /** Bez blokad – compare-and-set na bitach double ({@link AtomicQTable}) */
+        CAS,
+        /**
+         * Każdy wątek uczy własną kopię tablicy Q; co {@link #SHARD_ROUND} epizodów wątku kopie są
+         * uśredniane w ustalonej kolejności i rozsyłane z powrotem – wynik nie zależy od przeplotu wątków
+         */
+        SHARDED
+    }
+
+    /** Liczba pasków blokad w trybie STRIPED_LOCKS */
+    private static final int LOCK_STRIPES = 64;
+    /** Liczba epizodów każdego wątku między uśrednieniami kopii w trybie SHARDED */
+    static final int SHARD_ROUND = 10_000;
+
+    /** Agent Q-learning */
+    private final QLearningAgent agent;
+    /** Łączna liczba epizodów treningowych */
+    private final int episodes;
+    /** Współczynnik zmniejszania epsilon (na epizod całego treningu) */
+    private final double epsilonDecay;
+    /** Minimalna wartość epsilon */
+    private final double minEpsilon;
+    /** Liczba wątków */
+    private final int threads;
+    /** Sposób synchronizacji */
+    private final SyncMode syncMode;
+    /** Metryki treningu wspólne dla wątków (null = bez metryk) */
+    private TrainingMetrics metrics;
+    /** Ziarno, z którego wyprowadzane są generatory wątków */
+    private long seed = new SplittableRandom().nextLong();
+
+    /**
+     * Tworzy nowy trener wielowątkowy.
+     * @param agent agent Q-learning
+     * @param episodes łączna liczba epizodów treningowych
+     * @param epsilonDecay współczynnik zmniejszania epsilon
+     * @param minEpsilon minimalna wartość epsilon
+     * @param threads liczba wątków
+     * @param syncMode sposób synchronizacji dostępu do tablicy Q
+     */
+    public ParallelTrainer(QLearningAgent agent, int episodes, double epsilonDecay, double minEpsilon,
+                           int threads, SyncMode syncMode) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Liczba wątków musi być dodatnia: " + threads);
+        }
+        this.agent = agent;
+        this.episodes = episodes;
+        this.epsilonDecay = epsilonDecay;
+        this.minEpsilon = minEpsilon;
+        this.threads = threads;
+        this.syncMode = syncMode;
+    }
+
+    /**
+     * Włącza zbieranie metryk treningu; każdy wątek zapisuje zdarzenia do własnego licznika.
+     * @param metrics metryki treningu (lub null, aby wyłączyć)
+     */
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ustawia ziarno treningu; generator każdego wątku jest z niego wydzielany ({@link SplittableRandom#split()}).
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Przeprowadza trening: epizody są dzielone równo pomiędzy wątki.
+     * Każdy wątek zmniejsza swój epsilon o epsilonDecay^threads na epizod,
+     * dzięki czemu harmonogram epsilon odpowiada treningowi jednowątkowemu.
+     * @return przepustowość treningu w epizodach na sekundę
+     */
+    public double train() {
+        System.out.printf("Rozpoczynam trening agenta Q-learning (%d wątków, %s)...%n", threads, syncMode);
+
+        QTable shared = agent.getQTable();
+        Object[] locks = null;
+        QTable[] shards = null;
+        if (syncMode == SyncMode.SHARDED) {
+            shards = new QTable[threads];
+            for (int t = 0; t < threads; t++) {
+                shards[t] = new DoubleArrayQTable(shared.numStates(), shared.numActions());
+                shards[t].copyFrom(shared);
+            }
+        } else if (syncMode == SyncMode.CAS) {
+            shared = new AtomicQTable(shared.numStates(), shared.numActions());
+            shared.copyFrom(agent.getQTable());
+        } else {
+            locks = new Object[syncMode == SyncMode.GLOBAL_LOCK ? 1 : LOCK_STRIPES];
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        double workerDecay = Math.pow(epsilonDecay, threads);
+        SplittableRandom root = new SplittableRandom(seed);
+        List<TicTacToeTrainer> workers = new ArrayList<>(threads);
+        int[] slices = new int[threads];
+        for (int t = 0; t < threads; t++) {
+            slices[t] = episodes / threads + (t < episodes % threads ? 1 : 0);
+            QTable table = (shards != null) ? shards[t] : shared;
+            TicTacToeTrainer worker = new TicTacToeTrainer(agent.newWorker(table, locks), slices[t], workerDecay, minEpsilon);
+            worker.setReportInterval(0);
+            worker.setMetrics(metrics);
+            worker.setSeed(root.split().nextLong());
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            if (shards != null) {
+                trainSharded(pool, workers, slices, shards, shared);
+            } else {
+                List<Future<?>> futures = new ArrayList<>(threads);
+                for (TicTacToeTrainer worker : workers) {
+                    futures.add(pool.submit(worker::train));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano trening wielowątkowy", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Błąd w wątku treningu", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (shared != agent.getQTable()) {
+            agent.getQTable().copyFrom(shared);
+        }
+        agent.setEpsilon(Math.max(minEpsilon, agent.getEpsilon() * Math.pow(epsilonDecay, episodes)));
+
+        double throughput = episodes / seconds;
+        System.out.printf("Trening zakończony: %d epizodów w %.2f s (%.0f epizodów/s).%n", episodes, seconds, throughput);
+        return throughput;
+    }
+
+    /**
+     * Trening w trybie SHARDED: rundy po {@link #SHARD_ROUND} epizodów każdego wątku na własnej kopii
+     * tablicy Q, po każdej rundzie średnia kopii (sumowana w kolejności wątków) trafia do tablicy
+     * wspólnej i do wszystkich kopii.
+     */
+    private static void trainSharded(ExecutorService pool, List<TicTacToeTrainer> workers, int[] slices,
+                                     QTable[] shards, QTable shared)
+            throws InterruptedException, ExecutionException {
+        int[] done = new int[slices.length];
+        List<Future<?>> futures = new ArrayList<>(slices.length);
+        boolean remaining = true;
+        while (remaining) {
+            futures.clear();
+            for (int t = 0; t < slices.length; t++) {
+                int count = Math.min(SHARD_ROUND, slices[t] - done[t]);
+                done[t] += count;
+                TicTacToeTrainer worker = workers.get(t);
+                futures.add(pool.submit(() -> worker.trainEpisodes(count)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            averageShards(shards, shared);
+            remaining = false;
+            for (int t = 0; t < slices.length; t++) {
+                remaining |= done[t] < slices[t];
+            }
+        }
+    }
+
+    private static void averageShards(QTable[] shards, QTable shared) {
+        for (int s = 0; s < shared.numStates(); s++) {
+            for (int a = 0; a < shared.numActions(); a++) {
+                double sum = 0.0;
+                for (QTable shard : shards) {
+                    sum += shard.get(s, a);
+                }
+                shared.set(s, a, sum / shards.length);
+            }
+        }
+        for (QTable shard : shards) {
+            shard.copyFrom(shared);
+        }
+    }
+
+    /**
+     * Mierzy skalowanie treningu: dla 1, 2, 4, ... maxThreads wątków trenuje świeżego agenta
+     * i wypisuje przepustowość oraz przyspieszenie względem jednego wątku.
+     * @param episodes liczba epizodów w każdym pomiarze
+     * @param maxThreads największa liczba wątków
+     * @param syncMode sposób synchronizacji
+     */
+    public static void scalingReport(int episodes, int maxThreads, SyncMode syncMode) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t *= 2) {
+            counts.add(t);
+        }
+        counts.add(maxThreads);
+
+        double[] throughput = new double[counts.size()];
+        for (int i = 0; i < counts.size(); i++) {
+            QLearningAgent fresh = new QLearningAgent(0.1, 0.9, 0.7);
+            throughput[i] = new ParallelTrainer(fresh, episodes, 0.9999995, 0.01, counts.get(i), syncMode).train();
+        }
+
+        System.out.printf("%nSkalowanie treningu (%s, %d epizodów, %d rdzeni):%n",
+                syncMode, episodes, Runtime.getRuntime().availableProcessors());
+        System.out.println("wątki  epizody/s   przyspieszenie");
+        for (int i = 0; i < counts.size(); i++) {
+            System.out.printf("%5d  %10.0f  %6.2fx%n", counts.get(i), throughput[i], throughput[i] / throughput[0]);
+        }
+    }
+}
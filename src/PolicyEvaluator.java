@@ -0,0 +1,305 @@
+import java.io.Serial;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Ocena strategii bez interfejsu: turniej wielu partii między dwiema strategiami rozgrywany równolegle
+ * (fork-join) oraz tryb wyczerpujący, który przechodzi wszystkie linie gry przeciwnika.
+ * <p>
+ * W turnieju partie są dzielone na stałe przedziały, a każdy przedział tworzy własne instancje strategii
+ * z ziarna wyznaczonego przez ziarno turnieju i numer pierwszej partii – wynik zależy tylko od ziarna,
+ * a nie od liczby wątków. Strategie zmieniają się kolorami co partię (w partiach parzystych pierwsza
+ * strategia gra X). Niedozwolony ruch kończy partię przegraną strategii, która go wykonała.
+ */
+public class PolicyEvaluator {
+    /** Liczba partii w przedziale, którego zadanie nie jest już dzielone */
+    private static final int LEAF_GAMES = 8192;
+    /** Kwantyl rozkładu normalnego dla 95% przedziałów ufności */
+    private static final double Z95 = 1.959964;
+
+    /** Pula wątków turnieju */
+    private final ForkJoinPool pool;
+
+    /**
+     * Tworzy ewaluator korzystający ze wszystkich rdzeni.
+     */
+    public PolicyEvaluator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Tworzy ewaluator.
+     * @param threads liczba wątków turnieju
+     */
+    public PolicyEvaluator(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Zwraca fabrykę strategii losowej.
+     * @return fabryka: ziarno → strategia
+     */
+    public static LongFunction<MovePolicy> random() {
+        return seed -> new RandomPolicy(new Random(seed));
+    }
+
+    /**
+     * Zwraca fabrykę strategii heurystycznej (wygrywa lub blokuje, w pozostałych stanach losowo).
+     * @return fabryka: ziarno → strategia
+     */
+    public static LongFunction<MovePolicy> heuristic() {
+        return seed -> new HeuristicPolicy(new Random(seed));
+    }
+
+    /**
+     * Zwraca fabrykę strategii zachłannej agenta (bez eksploracji). Agent jest tylko odczytywany,
+     * więc wszystkie wątki dzielą jego tablicę Q.
+     * @param agent agent Q-learning
+     * @return fabryka: ziarno → strategia
+     */
+    public static LongFunction<MovePolicy> greedy(QLearningAgent agent) {
+        MovePolicy policy = (boardIndex, fields) -> agent.greedyAction(boardIndex, Transitions.emptyMask(boardIndex));
+        return seed -> policy;
+    }
+
+    /**
+     * Rozgrywa turniej między dwiema strategiami.
+     * @param first fabryka pierwszej (ocenianej) strategii
+     * @param second fabryka drugiej strategii
+     * @param games liczba partii
+     * @param seed ziarno turnieju
+     * @return wyniki z punktu widzenia pierwszej strategii
+     */
+    public Result tournament(LongFunction<MovePolicy> first, LongFunction<MovePolicy> second, long games, long seed) {
+        long start = System.nanoTime();
+        long[] counts = pool.invoke(new Match(first, second, seed, 0, games));
+        return new Result(games, counts[0], counts[1], counts[2], counts[3], System.nanoTime() - start);
+    }
+
+    /**
+     * Zatrzymuje wątki ewaluatora.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /** Zadanie fork-join rozgrywające partie z przedziału [from, to) */
+    private static final class Match extends RecursiveTask<long[]> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final LongFunction<MovePolicy> first;
+        private final LongFunction<MovePolicy> second;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        Match(LongFunction<MovePolicy> first, LongFunction<MovePolicy> second, long seed, long from, long to) {
+            this.first = first;
+            this.second = second;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > LEAF_GAMES) {
+                long mid = (from + to) >>> 1;
+                Match left = new Match(first, second, seed, from, mid);
+                left.fork();
+                long[] right = new Match(first, second, seed, mid, to).compute();
+                long[] counts = left.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += right[i];
+                }
+                return counts;
+            }
+            SplittableRandom seeds = new SplittableRandom(seed ^ (from * 0x9E3779B97F4A7C15L));
+            MovePolicy a = first.apply(seeds.nextLong());
+            MovePolicy b = second.apply(seeds.nextLong());
+            Board board = new Board();
+            /* wygrane, remisy, porażki, porażki przez niedozwolony ruch – pierwszej strategii */
+            long[] counts = new long[4];
+            for (long game = from; game < to; game++) {
+                boolean firstIsX = (game & 1) == 0;
+                int result = play(board, firstIsX ? a : b, firstIsX ? b : a);
+                if (result == Transitions.DRAW) {
+                    counts[1]++;
+                } else {
+                    boolean firstWon = (Math.abs(result) == 1) == firstIsX;
+                    counts[firstWon ? 0 : 2]++;
+                    if (result < 0 && !firstWon) {
+                        counts[3]++;
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Rozgrywa jedną partię.
+     * @return X_WINS, O_WINS lub DRAW; wartość ujemna (-X_WINS, -O_WINS), gdy wygrana wynika
+     *         z niedozwolonego ruchu przeciwnika
+     */
+    private static int play(Board board, MovePolicy x, MovePolicy o) {
+        board.clear();
+        byte player = 1;
+        while (true) {
+            int state = board.getStateIndex();
+            int action = (player == 1 ? x : o).chooseAction(state, board.getFields());
+            byte other = (player == 1) ? (byte) 2 : (byte) 1;
+            if (!board.makeMove(action, player)) {
+                return -other;
+            }
+            byte status = Transitions.status(board.getStateIndex());
+            if (status != Transitions.IN_PLAY) {
+                return status;
+            }
+            player = other;
+        }
+    }
+
+    /**
+     * Przechodzi wszystkie linie gry, w których strategia gra za podanego gracza, a przeciwnik
+     * wykonuje każdy dozwolony ruch. Strategia powinna być deterministyczna (np. agent z epsilon = 0) –
+     * w każdym stanie brany jest jeden jej ruch.
+     * @param policy oceniana strategia
+     * @param player gracz, za którego gra strategia (1 = X, 2 = O)
+     * @return liczby linii zakończonych wygraną, remisem i porażką oraz pierwsza przegrana linia
+     */
+    public static ExhaustiveResult exhaustive(MovePolicy policy, byte player) {
+        long[] counts = new long[3];
+        int[] moves = new int[9];
+        String[] firstLoss = new String[1];
+        walk(new Board(), (byte) 1, policy, player, moves, 0, counts, firstLoss);
+        return new ExhaustiveResult(counts[0], counts[1], counts[2], firstLoss[0]);
+    }
+
+    private static void walk(Board board, byte toMove, MovePolicy policy, byte player, int[] moves, int depth,
+                             long[] counts, String[] firstLoss) {
+        byte other = (toMove == 1) ? (byte) 2 : (byte) 1;
+        if (toMove == player) {
+            int action = policy.chooseAction(board.getStateIndex(), board.getFields());
+            if (!board.makeMove(action, toMove)) {
+                moves[depth] = action;
+                recordLoss(moves, depth + 1, counts, firstLoss);
+                return;
+            }
+            descend(board, other, policy, player, moves, depth, action, counts, firstLoss);
+        } else {
+            for (int empty = board.getEmptyMask(); empty != 0; empty &= empty - 1) {
+                int action = Integer.numberOfTrailingZeros(empty);
+                board.makeMove(action, toMove);
+                descend(board, other, policy, player, moves, depth, action, counts, firstLoss);
+            }
+        }
+    }
+
+    /**
+     * Kontynuuje linię po wykonanym ruchu i cofa go.
+     */
+    private static void descend(Board board, byte next, MovePolicy policy, byte player, int[] moves, int depth,
+                                int action, long[] counts, String[] firstLoss) {
+        moves[depth] = action;
+        byte status = Transitions.status(board.getStateIndex());
+        if (status == Transitions.IN_PLAY) {
+            walk(board, next, policy, player, moves, depth + 1, counts, firstLoss);
+        } else if (status == Transitions.DRAW) {
+            counts[1]++;
+        } else if (status == player) {
+            counts[0]++;
+        } else {
+            recordLoss(moves, depth + 1, counts, firstLoss);
+        }
+        board.undoMove(action);
+    }
+
+    private static void recordLoss(int[] moves, int length, long[] counts, String[] firstLoss) {
+        counts[2]++;
+        if (firstLoss[0] == null) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append(i == 0 ? "" : " ").append(moves[i]);
+            }
+            firstLoss[0] = sb.toString();
+        }
+    }
+
+    /**
+     * Zwraca 95% przedział ufności Wilsona dla odsetka sukcesów.
+     * @param successes liczba sukcesów
+     * @param trials liczba prób
+     * @return {dolna granica, górna granica}
+     */
+    public static double[] wilson(long successes, long trials) {
+        if (trials == 0) {
+            return new double[] {0.0, 1.0};
+        }
+        double p = successes / (double) trials;
+        double z2n = Z95 * Z95 / trials;
+        double center = (p + z2n / 2) / (1 + z2n);
+        double half = Z95 * Math.sqrt(p * (1 - p) / trials + z2n / (4 * trials)) / (1 + z2n);
+        return new double[] {Math.max(0.0, center - half), Math.min(1.0, center + half)};
+    }
+
+    /**
+     * Wynik turnieju z punktu widzenia pierwszej strategii.
+     * @param games liczba partii
+     * @param wins wygrane
+     * @param draws remisy
+     * @param losses porażki (łącznie z porażkami przez niedozwolony ruch)
+     * @param forfeits porażki przez niedozwolony ruch
+     * @param nanos czas turnieju w nanosekundach
+     */
+    public record Result(long games, long wins, long draws, long losses, long forfeits, long nanos) {
+
+        /**
+         * Zwraca liczbę partii na sekundę.
+         * @return partie/s
+         */
+        public double gamesPerSecond() {
+            return games * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d partii: wygrane %s, remisy %s, porażki %s%s, %.0f partii/s",
+                    games, rate(wins), rate(draws), rate(losses),
+                    forfeits > 0 ? " (niedozwolone ruchy: " + forfeits + ")" : "", gamesPerSecond());
+        }
+
+        private String rate(long count) {
+            double[] ci = wilson(count, games);
+            return String.format("%.3f%% [%.3f–%.3f]", 100.0 * count / games, 100 * ci[0], 100 * ci[1]);
+        }
+    }
+
+    /**
+     * Wynik przejścia wszystkich linii przeciwnika.
+     * @param wins linie zakończone wygraną strategii
+     * @param draws linie zakończone remisem
+     * @param losses linie zakończone porażką strategii
+     * @param firstLoss ruchy pierwszej przegranej linii (pola od pierwszego ruchu X) lub null
+     */
+    public record ExhaustiveResult(long wins, long draws, long losses, String firstLoss) {
+
+        /**
+         * Sprawdza, czy strategia nie przegrywa w żadnej linii.
+         * @return true, jeśli nie ma przegranych linii
+         */
+        public boolean neverLoses() {
+            return losses == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d linii: wygrane %d, remisy %d, porażki %d%s", wins + draws + losses, wins, draws, losses,
+                    firstLoss != null ? " (pierwsza przegrana linia: " + firstLoss + ")" : "");
+        }
+    }
+}
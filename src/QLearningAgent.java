@@ -1,21 +1,26 @@
 import java.io.*;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Agent Q-learning do gry w kółko-krzyżyk 3 × 3.
  * Uczy się optymalnej strategii na podstawie tablicy Q.
+ * <p>
+ * W trybie stanów po ruchu (afterstates) tablica ma jedną kolumnę: wartość planszy tuż po ruchu agenta,
+ * z punktu widzenia gracza, który go wykonał (liczby X i O rozstrzygają, kto to był). Wartością Q(s, a)
+ * jest wtedy V(s po ruchu a), więc ruchy prowadzące różnymi drogami do tej samej planszy dzielą wartość,
+ * a reguła aktualizacji i wybór ruchu pozostają takie same jak w zwykłym Q-learningu.
  */
-public class QLearningAgent implements Serializable {
+public class QLearningAgent implements MovePolicy, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
     /** Liczba możliwych stanów w 3 × 3 tic-tac-toe = 3^9 = 19683 */
-    private static final int NUM_STATES = 19683;
+    public static final int NUM_STATES = 19683;
     /** Liczba wszystkich pól = 9 (ilość możliwych akcji) */
-    private static final int NUM_ACTIONS = 9;
+    public static final int NUM_ACTIONS = 9;
 
-    /** Główna tablica Q: Q[stateIndex][action] */
-    private final double[][] qTable;
+    /** Główna tablica Q: Q(stateIndex, action) */
+    private final QTable qTable;
 
     /** Współczynnik uczenia */
     private final double alpha;
@@ -24,7 +29,23 @@ public class QLearningAgent implements Serializable {
     /** Parametr epsilon-greedy (maleje w czasie) */
     private double epsilon;
 
-    private final Random rand;
+    /** Czy stany symetryczne (obroty, odbicia) dzielą jeden wiersz tablicy Q */
+    private final boolean symmetric;
+
+    /** Czy tablica przechowuje wartości stanów po ruchu (jedna kolumna) zamiast wartości par stan–akcja */
+    private final boolean afterstates;
+
+    /** Generator eksploracji – SplittableRandom nie używa CAS i przy tym samym ziarnie daje ten sam ciąg */
+    private SplittableRandom rand;
+
+    /** Blokady aktualizacji współdzielone przez wątki treningu (null = brak blokowania) */
+    private final Object[] updateLocks;
+
+    /** Mapa bitowa wierszy tablicy Q zmienionych od ostatniego punktu kontrolnego (null = bez śledzenia) */
+    private transient long[] dirtyRows;
+
+    /** Monitor zbieżności powiadamiany o każdej aktualizacji (null = bez monitora) */
+    private transient ConvergenceMonitor convergence;
 
     /**
      * Tworzy nowego agenta Q-learning.
@@ -33,11 +54,112 @@ public class QLearningAgent implements Serializable {
      * @param epsilon parametr eksploracji
      */
     public QLearningAgent(double alpha, double gamma, double epsilon) {
+        this(alpha, gamma, epsilon, new DoubleArrayQTable(NUM_STATES, NUM_ACTIONS));
+    }
+
+    /**
+     * Tworzy nowego agenta Q-learning z podanym magazynem tablicy Q
+     * (np. {@link FloatArrayQTable} lub {@link DirectBufferQTable}).
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskonta
+     * @param epsilon parametr eksploracji
+     * @param qTable tablica Q o wymiarach NUM_STATES × NUM_ACTIONS
+     */
+    public QLearningAgent(double alpha, double gamma, double epsilon, QTable qTable) {
+        this(alpha, gamma, epsilon, qTable, false);
+    }
+
+    /**
+     * Tworzy nowego agenta Q-learning, opcjonalnie utożsamiającego stany symetryczne.
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskonta
+     * @param epsilon parametr eksploracji
+     * @param symmetric true – tablica Q obejmuje tylko 765 kanonicznych stanów osiągalnych
+     */
+    public QLearningAgent(double alpha, double gamma, double epsilon, boolean symmetric) {
+        this(alpha, gamma, epsilon, symmetric, false);
+    }
+
+    /**
+     * Tworzy nowego agenta Q-learning, opcjonalnie uczącego się wartości stanów po ruchu.
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskonta
+     * @param epsilon parametr eksploracji
+     * @param symmetric true – tablica obejmuje tylko 765 kanonicznych stanów osiągalnych
+     * @param afterstates true – jedna wartość na planszę po ruchu zamiast 9 wartości Q na stan
+     */
+    public QLearningAgent(double alpha, double gamma, double epsilon, boolean symmetric, boolean afterstates) {
+        this(alpha, gamma, epsilon, new DoubleArrayQTable(symmetric ? Symmetry.NUM_CANONICAL_STATES : NUM_STATES,
+                afterstates ? 1 : NUM_ACTIONS), symmetric, afterstates);
+    }
+
+    /**
+     * Tworzy nowego agenta Q-learning z podanym magazynem tablicy Q.
+     * W trybie symetrycznym wiersze tablicy odpowiadają klasom symetrii ({@link Symmetry}),
+     * a kolumny – polom w postaci kanonicznej; agent przyjmuje wtedy tylko stany osiągalne w grze.
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskonta
+     * @param epsilon parametr eksploracji
+     * @param qTable tablica Q (NUM_STATES lub Symmetry.NUM_CANONICAL_STATES wierszy, NUM_ACTIONS kolumn)
+     * @param symmetric true, jeśli stany symetryczne mają dzielić wiersz tablicy Q
+     */
+    public QLearningAgent(double alpha, double gamma, double epsilon, QTable qTable, boolean symmetric) {
+        this(alpha, gamma, epsilon, qTable, symmetric, false);
+    }
+
+    /**
+     * Tworzy nowego agenta Q-learning z podanym magazynem tablicy.
+     * @param alpha współczynnik uczenia
+     * @param gamma współczynnik dyskonta
+     * @param epsilon parametr eksploracji
+     * @param qTable tablica (NUM_STATES lub Symmetry.NUM_CANONICAL_STATES wierszy; NUM_ACTIONS kolumn,
+     *               a w trybie stanów po ruchu – jedna kolumna)
+     * @param symmetric true, jeśli stany symetryczne mają dzielić wiersz tablicy
+     * @param afterstates true, jeśli tablica przechowuje wartości stanów po ruchu
+     */
+    public QLearningAgent(double alpha, double gamma, double epsilon, QTable qTable, boolean symmetric,
+                          boolean afterstates) {
+        int expectedStates = symmetric ? Symmetry.NUM_CANONICAL_STATES : NUM_STATES;
+        if (qTable.numStates() != expectedStates || qTable.numActions() != (afterstates ? 1 : NUM_ACTIONS)) {
+            throw new IllegalArgumentException("Nieprawidłowe wymiary tablicy Q: "
+                    + qTable.numStates() + " × " + qTable.numActions());
+        }
         this.alpha = alpha;
         this.gamma = gamma;
         this.epsilon = epsilon;
-        this.rand = new Random();
-        qTable = new double[NUM_STATES][NUM_ACTIONS];
+        this.rand = new SplittableRandom();
+        this.qTable = qTable;
+        this.symmetric = symmetric;
+        this.afterstates = afterstates;
+        this.updateLocks = null;
+    }
+
+    /**
+     * Tworzy agenta roboczego dla jednego wątku treningu – z własnym generatorem losowym
+     * i własnym epsilon, ale ze wspólną tablicą Q.
+     */
+    private QLearningAgent(QLearningAgent parent, QTable qTable, Object[] updateLocks) {
+        this.alpha = parent.alpha;
+        this.gamma = parent.gamma;
+        this.epsilon = parent.epsilon;
+        this.rand = new SplittableRandom();
+        this.qTable = qTable;
+        this.symmetric = parent.symmetric;
+        this.afterstates = parent.afterstates;
+        this.updateLocks = updateLocks;
+    }
+
+    /**
+     * Tworzy agenta roboczego dla wątku treningu równoległego.
+     * Jedna blokada szeregowuje wszystkie aktualizacje (semantyka identyczna jak w treningu
+     * jednowątkowym), wiele blokad dzieli stany na paski, a brak blokad wymaga tablicy
+     * z atomową operacją {@link QTable#blend}, np. {@link AtomicQTable}.
+     * @param qTable tablica Q współdzielona przez wątki
+     * @param updateLocks blokady aktualizacji wspólne dla wszystkich wątków (lub null)
+     * @return agent roboczy
+     */
+    QLearningAgent newWorker(QTable qTable, Object[] updateLocks) {
+        return new QLearningAgent(this, qTable, updateLocks);
     }
 
     /**
@@ -46,23 +168,43 @@ public class QLearningAgent implements Serializable {
      * @param fields tablica pól planszy
      * @return indeks wybranego ruchu (0-8)
      */
+    @Override
     public int chooseAction(int boardIndex, byte[] fields) {
-        double[] qValues = qTable[boardIndex];
-        int numEmpty = 0;
-        int[] emptyPos = new int[9];
-        for (int i = 0; i < 9; i++) {
-            if (fields[i] == 0) {
-                emptyPos[numEmpty++] = i;
-            }
-        }
+        return chooseAction(boardIndex, Board.maskOf(fields, (byte) 0));
+    }
+
+    /**
+     * Wybiera akcję metodą epsilon-greedy na podstawie maski pustych pól
+     * (np. z {@link Transitions#emptyMask}) – bez przeglądania tablicy pól.
+     * @param boardIndex indeks stanu planszy
+     * @param emptyMask maska pustych pól, niezerowa
+     * @return indeks wybranego ruchu (0-8)
+     */
+    public int chooseAction(int boardIndex, int emptyMask) {
         if (rand.nextDouble() < epsilon) {
-            return emptyPos[rand.nextInt(numEmpty)];
+            return nthSetBit(emptyMask, rand.nextInt(Integer.bitCount(emptyMask)));
+        }
+        return greedyAction(boardIndex, emptyMask);
+    }
+
+    /**
+     * Wybiera akcję o największej wartości Q spośród pustych pól (bez eksploracji).
+     * Przy równych wartościach wybierane jest pole o najmniejszym indeksie.
+     * @param boardIndex indeks stanu planszy (Board.getStateIndex())
+     * @param emptyMask maska pustych pól (Board.getEmptyMask()), niezerowa
+     * @return indeks wybranego ruchu (0-8)
+     */
+    public int greedyAction(int boardIndex, int emptyMask) {
+        if (afterstates) {
+            return greedyAfterstate(boardIndex, emptyMask);
         }
-        int bestAction = emptyPos[0];
-        double bestQ = qValues[bestAction];
-        for (int k = 1; k < numEmpty; k++) {
-            int a = emptyPos[k];
-            double q = qValues[a];
+        int row = row(boardIndex);
+        int[] perm = actionMap(boardIndex);
+        int bestAction = Integer.numberOfTrailingZeros(emptyMask);
+        double bestQ = qTable.get(row, perm[bestAction]);
+        for (int rest = emptyMask & (emptyMask - 1); rest != 0; rest &= rest - 1) {
+            int a = Integer.numberOfTrailingZeros(rest);
+            double q = qTable.get(row, perm[a]);
             if (q > bestQ) {
                 bestQ = q;
                 bestAction = a;
@@ -71,27 +213,227 @@ public class QLearningAgent implements Serializable {
         return bestAction;
     }
 
+    /**
+     * Wybiera ruch prowadzący do stanu po ruchu o największej wartości (przy równych – pole o najmniejszym indeksie).
+     * Stany po ruchu bez wiersza w tablicy (nieosiągalne w trybie symetrycznym) są pomijane.
+     */
+    private int greedyAfterstate(int boardIndex, int emptyMask) {
+        byte player = toMove(boardIndex);
+        int bestAction = Integer.numberOfTrailingZeros(emptyMask);
+        double bestV = Double.NEGATIVE_INFINITY;
+        for (int rest = emptyMask; rest != 0; rest &= rest - 1) {
+            int a = Integer.numberOfTrailingZeros(rest);
+            int row = row(Transitions.next(boardIndex, a, player));
+            if (row < 0) {
+                continue;
+            }
+            double v = qTable.get(row, 0);
+            if (v > bestV) {
+                bestV = v;
+                bestAction = a;
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Wybiera najlepsze akcje (bez eksploracji) dla wielu stanów w jednym przebiegu –
+     * do analiz i masowych symulacji. Wynik dla każdego stanu jest taki sam jak
+     * {@link #greedyAction}; dla pustej maski akcją jest -1.
+     * @param states indeksy stanów planszy (Board.getStateIndex())
+     * @param emptyMasks maski pustych pól (Board.getEmptyMask())
+     * @param outActions tablica na wybrane ruchy (0-8)
+     * @param outMaxQ tablica na wartości Q wybranych ruchów (lub null)
+     * @param count liczba stanów do przetworzenia
+     */
+    public void chooseBestActions(int[] states, int[] emptyMasks, int[] outActions, double[] outMaxQ, int count) {
+        if (!symmetric && !afterstates) {
+            qTable.bestActions(states, emptyMasks, outActions, outMaxQ, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int best = -1;
+            double bestQ = Double.NEGATIVE_INFINITY;
+            for (int empty = emptyMasks[i]; empty != 0; empty &= empty - 1) {
+                int a = Integer.numberOfTrailingZeros(empty);
+                double q = getQ(states[i], a);
+                if (best < 0 || q > bestQ) {
+                    bestQ = q;
+                    best = a;
+                }
+            }
+            outActions[i] = best;
+            if (outMaxQ != null) {
+                outMaxQ[i] = bestQ;
+            }
+        }
+    }
+
+    /**
+     * Zwraca wartość Q ruchu w stanie planszy (w trybie symetrycznym – z wiersza klasy symetrii).
+     * @param stateIndex indeks stanu planszy
+     * @param action indeks pola (0-8)
+     * @return wartość Q
+     */
+    public double getQ(int stateIndex, int action) {
+        if (afterstates) {
+            return qTable.get(afterstateRow(stateIndex, action), 0);
+        }
+        return qTable.get(row(stateIndex), actionMap(stateIndex)[action]);
+    }
+
+    /**
+     * Zwraca indeks n-tego (liczonego od zera) ustawionego bitu maski.
+     */
+    private static int nthSetBit(int mask, int n) {
+        for (int k = 0; k < n; k++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
     /**
      * Aktualizuje wartość Q po pojedynczym kroku.
-     * Q(s,a) ← Q(s,a) + α * (r + γ * max_a' Q(s',a') - Q(s,a))
+     * Q(s,a) ← Q(s,a) + α * (r + γ * max_a' Q(s',a') - Q(s,a)), gdzie maksimum obejmuje
+     * tylko dozwolone ruchy (puste pola) w stanie s'. W trybie stanów po ruchu aktualizowana jest
+     * wartość planszy po ruchu a w stanie s, a maksimum obejmuje plansze po ruchach w stanie s'.
      * @param stateIndex indeks bieżącego stanu
      * @param action wykonana akcja
      * @param reward nagroda
      * @param nextStateIndex indeks następnego stanu (lub -1, jeśli terminalny)
+     * @return błąd TD: r + γ * max_a' Q(s',a') - Q(s,a) sprzed aktualizacji
+     */
+    public double update(int stateIndex, int action, double reward, int nextStateIndex) {
+        if (updateLocks != null) {
+            synchronized (updateLock(stateIndex, action)) {
+                return applyUpdate(stateIndex, action, reward, nextStateIndex);
+            }
+        }
+        return applyUpdate(stateIndex, action, reward, nextStateIndex);
+    }
+
+    /**
+     * Przesuwa wartość Q w stronę podanego celu: Q(s,a) ← Q(s,a) + α * (cel - Q(s,a)) – dla zwrotów
+     * wielokrokowych liczonych poza agentem ({@link EpisodeTrace}).
+     * @param stateIndex indeks stanu
+     * @param action wykonana akcja
+     * @param target cel aktualizacji
+     * @return błąd TD: cel - Q(s,a) sprzed aktualizacji
      */
-    public void update(int stateIndex, int action, double reward, int nextStateIndex) {
-        double oldQ = qTable[stateIndex][action];
+    public double updateTowards(int stateIndex, int action, double target) {
+        if (updateLocks != null) {
+            synchronized (updateLock(stateIndex, action)) {
+                return blendTowards(stateIndex, action, target);
+            }
+        }
+        return blendTowards(stateIndex, action, target);
+    }
+
+    private Object updateLock(int stateIndex, int action) {
+        int lockRow = afterstates ? afterstateRow(stateIndex, action) : row(stateIndex);
+        return updateLocks[lockRow % updateLocks.length];
+    }
+
+    private double applyUpdate(int stateIndex, int action, double reward, int nextStateIndex) {
         double maxQNext = 0.0;
         if (nextStateIndex >= 0) {
-            double[] qNext = qTable[nextStateIndex];
-            maxQNext = qNext[0];
-            for (int i = 1; i < NUM_ACTIONS; i++) {
-                double v = qNext[i];
-                if (v > maxQNext) maxQNext = v;
-            }
+            maxQNext = maxLegalQ(nextStateIndex);
+        }
+        return blendTowards(stateIndex, action, reward + gamma * maxQNext);
+    }
+
+    private double blendTowards(int stateIndex, int action, double target) {
+        int row = afterstates ? afterstateRow(stateIndex, action) : row(stateIndex);
+        int col = afterstates ? 0 : actionMap(stateIndex)[action];
+        if (dirtyRows != null) {
+            dirtyRows[row >>> 6] |= 1L << row;
+        }
+        double tdError = qTable.blend(row, col, target, alpha);
+        if (convergence != null) {
+            // w trybie symetrycznym aktualizacja zmienia wiersz całej klasy – monitor śledzi jej postać kanoniczną
+            convergence.recordUpdate(symmetric ? Symmetry.canonicalState(stateIndex) : stateIndex, alpha * tdError);
+        }
+        return tdError;
+    }
+
+    /**
+     * Zwraca największą wartość Q spośród dozwolonych ruchów w stanie (0 dla stanu końcowego).
+     * @param stateIndex indeks stanu planszy
+     * @return max_a Q(s,a) po pustych polach
+     */
+    public double maxQ(int stateIndex) {
+        return maxLegalQ(stateIndex);
+    }
+
+    /**
+     * Zwraca największą wartość Q spośród pustych pól stanu (0 dla stanu końcowego – partia się skończyła,
+     * a stany po ruchu w takiej planszy są nieosiągalne). Wartości Q zajętych pól nigdy nie są aktualizowane,
+     * więc nie mogą wchodzić do maksimum.
+     */
+    private double maxLegalQ(int stateIndex) {
+        int empty = Transitions.emptyMask(stateIndex);
+        if (empty == 0 || Transitions.status(stateIndex) != Transitions.IN_PLAY) {
+            return 0.0;
         }
-        double newQ = oldQ + alpha * (reward + gamma * maxQNext - oldQ);
-        qTable[stateIndex][action] = newQ;
+        if (afterstates) {
+            return getQ(stateIndex, greedyAfterstate(stateIndex, empty));
+        }
+        int row = row(stateIndex);
+        int[] perm = actionMap(stateIndex);
+        double best = Double.NEGATIVE_INFINITY;
+        for (; empty != 0; empty &= empty - 1) {
+            double q = qTable.get(row, perm[Integer.numberOfTrailingZeros(empty)]);
+            if (q > best) best = q;
+        }
+        return best;
+    }
+
+    /**
+     * Włącza śledzenie zmienionych wierszy tablicy Q: każda aktualizacja ustawia bit swojego
+     * wiersza w podanej mapie ({@link Checkpointer}). Mapa nie jest synchronizowana, więc
+     * aktualizacje muszą pochodzić z jednego wątku; agenci robocze ({@link #newWorker}) nie śledzą zmian.
+     * @param dirtyRows mapa bitowa o co najmniej (numStates + 63) / 64 słowach (lub null, aby wyłączyć)
+     */
+    void setDirtyRows(long[] dirtyRows) {
+        this.dirtyRows = dirtyRows;
+    }
+
+    /**
+     * Włącza powiadamianie monitora zbieżności o aktualizacjach (stan i zmiana wartości Q).
+     * Tak jak mapa zmienionych wierszy, monitor nie jest synchronizowany – aktualizacje muszą
+     * pochodzić z jednego wątku naraz.
+     * @param convergence monitor zbieżności (lub null, aby wyłączyć)
+     */
+    void setConvergenceMonitor(ConvergenceMonitor convergence) {
+        this.convergence = convergence;
+    }
+
+    /**
+     * Zwraca wiersz tablicy Q dla stanu planszy.
+     */
+    private int row(int stateIndex) {
+        return symmetric ? Symmetry.compactIndex(stateIndex) : stateIndex;
+    }
+
+    /**
+     * Zwraca wiersz tablicy dla planszy po ruchu gracza, który ma ruch w danym stanie.
+     */
+    private int afterstateRow(int stateIndex, int action) {
+        return row(Transitions.next(stateIndex, action, toMove(stateIndex)));
+    }
+
+    /**
+     * Zwraca gracza, który ma ruch: X, gdy liczba pustych pól jest nieparzysta (X zaczyna).
+     */
+    private static byte toMove(int stateIndex) {
+        return (Integer.bitCount(Transitions.emptyMask(stateIndex)) & 1) == 1 ? (byte) 1 : (byte) 2;
+    }
+
+    /**
+     * Zwraca odwzorowanie pól planszy na kolumny tablicy Q dla stanu planszy.
+     */
+    private int[] actionMap(int stateIndex) {
+        return symmetric ? Symmetry.toCanonical(stateIndex) : Constants.SYMMETRIES[0];
     }
 
     /**
@@ -107,12 +449,21 @@ public class QLearningAgent implements Serializable {
     }
 
     /**
-     * Zapisuje tablicę Q do pliku binarnego (serializacja).
+     * Zapisuje tablicę Q do pliku binarnego ({@link QTableFile}, wartości double).
      * @param filename ścieżka do pliku
      */
     public void saveQTable(String filename) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(qTable);
+        saveQTable(filename, QTableFile.ValueType.FLOAT64);
+    }
+
+    /**
+     * Zapisuje tablicę Q do pliku binarnego ({@link QTableFile}) wraz z hiperparametrami.
+     * @param filename ścieżka do pliku
+     * @param valueType sposób zapisu wartości (FLOAT32 i INT8 zmniejszają plik kosztem precyzji)
+     */
+    public void saveQTable(String filename, QTableFile.ValueType valueType) {
+        try {
+            QTableFile.write(filename, qTable, symmetric, alpha, gamma, epsilon, valueType);
             System.out.println("Zapisano Q-table do: " + filename);
         } catch (IOException e) {
             System.err.println("Błąd zapisu Q-table: " + e.getMessage());
@@ -120,28 +471,122 @@ public class QLearningAgent implements Serializable {
     }
 
     /**
-     * Wczytuje tablicę Q z pliku binarnego (serializacja).
+     * Wczytuje tablicę Q z pliku binarnego ({@link QTableFile}) lub ze starego pliku
+     * z serializowaną tablicą double[][].
      * @param filename ścieżka do pliku
      * @return true, jeśli wczytano poprawnie, false w przeciwnym razie
      */
     public boolean loadQTable(String filename) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            Object obj = ois.readObject();
-            if (obj instanceof double[][] loaded) {
-                if (loaded.length == NUM_STATES && loaded[0].length == NUM_ACTIONS) {
-                    for (int i = 0; i < NUM_STATES; i++) {
-                        System.arraycopy(loaded[i], 0, qTable[i], 0, NUM_ACTIONS);
-                    }
-                    System.out.println("Wczytano Q-table z: " + filename);
-                    return true;
+        try {
+            if (QTableFile.isQTableFile(filename)) {
+                if (QTableFile.readHeader(filename).symmetric() != symmetric) {
+                    System.err.println("Nie udało się wczytać Q-table: niezgodny tryb symetrii");
+                    return false;
                 }
+                QTableFile.read(filename, qTable);
+                System.out.println("Wczytano Q-table z: " + filename);
+                return true;
+            }
+            double[][] loaded = QTableFile.readLegacy(filename);
+            if (loaded.length == qTable.numStates() && loaded[0].length == qTable.numActions()) {
+                qTable.copyFrom(loaded);
+                System.out.println("Wczytano Q-table z: " + filename);
+                return true;
             }
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.err.println("Nie udało się wczytać Q-table: " + e.getMessage());
         }
         return false;
     }
 
+    /**
+     * Tworzy agenta serwującego ruchy bezpośrednio z pliku tablicy Q odwzorowanego w pamięci
+     * (bez kopiowania tablicy na stertę). Agent nie eksploruje (epsilon = 0), a jego tablica
+     * jest tylko do odczytu – nie nadaje się do treningu.
+     * @param filename ścieżka do pliku w formacie {@link QTableFile}
+     * @return agent tylko do gry
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego pliku
+     */
+    public static QLearningAgent openMapped(String filename) throws IOException {
+        MappedQTable table = QTableFile.map(filename, false);
+        QTableFile.Header header = table.header();
+        return new QLearningAgent(header.alpha(), header.gamma(), 0.0, table, header.symmetric(),
+                header.numActions() == 1);
+    }
+
+    /**
+     * Tworzy agenta, którego tablica Q jest wczytywana z pliku stronami przy pierwszym dostępie
+     * ({@link PagedQTable}) – start wymaga tylko odczytu nagłówka, a na stercie trzymanych jest najwyżej
+     * {@code cachePages} stron. Agent nie eksploruje (epsilon = 0); zapis do tablicy jest możliwy,
+     * ale zmienione strony zostają w pamięci i nie trafiają do pliku.
+     * @param filename ścieżka do pliku w formacie {@link QTableFile}
+     * @param cachePages największa liczba niezmienionych stron w pamięci
+     * @return agent
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego pliku
+     */
+    public static QLearningAgent openLazy(String filename, int cachePages) throws IOException {
+        PagedQTable table = new PagedQTable(filename, cachePages);
+        QTableFile.Header header = table.header();
+        return new QLearningAgent(header.alpha(), header.gamma(), 0.0, table, header.symmetric(),
+                header.numActions() == 1);
+    }
+
+    /**
+     * Zwraca magazyn tablicy Q używany przez agenta.
+     * @return tablica Q
+     */
+    public QTable getQTable() {
+        return qTable;
+    }
+
+    /**
+     * Sprawdza, czy agent utożsamia stany symetryczne.
+     * @return true w trybie symetrycznym
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * Sprawdza, czy agent uczy się wartości stanów po ruchu.
+     * @return true w trybie stanów po ruchu
+     */
+    public boolean isAfterstates() {
+        return afterstates;
+    }
+
+    /**
+     * Ustawia ziarno generatora losowego eksploracji (np. przy wznawianiu treningu).
+     * @param seed ziarno
+     */
+    public void setSeed(long seed) {
+        rand = new SplittableRandom(seed);
+    }
+
+    /**
+     * Zwraca współczynnik uczenia.
+     * @return alpha
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Zwraca współczynnik dyskonta.
+     * @return gamma
+     */
+    public double getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Ustawia wartość epsilon (np. po treningu wielowątkowym).
+     * @param epsilon nowa wartość epsilon
+     */
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
     /**
      * Zwraca bieżącą wartość epsilon (np. do logowania).
      * @return wartość epsilon
@@ -0,0 +1,150 @@
+/**
+ * Magazyn wartości Q(s,a) używany przez {@link QLearningAgent}.
+ * Implementacje przechowują tablicę w jednym ciągłym bloku pamięci,
+ * adresowanym jako {@code state * numActions() + action}.
+ */
+public interface QTable {
+
+    /**
+     * Zwraca liczbę stanów (wierszy) tablicy.
+     * @return liczba stanów
+     */
+    int numStates();
+
+    /**
+     * Zwraca liczbę akcji (kolumn) tablicy.
+     * @return liczba akcji
+     */
+    int numActions();
+
+    /**
+     * Odczytuje wartość Q(s,a).
+     * @param state indeks stanu
+     * @param action indeks akcji
+     * @return wartość Q
+     */
+    double get(int state, int action);
+
+    /**
+     * Zapisuje wartość Q(s,a).
+     * @param state indeks stanu
+     * @param action indeks akcji
+     * @param value nowa wartość Q
+     */
+    void set(int state, int action, double value);
+
+    /**
+     * Przesuwa wartość Q(s,a) w stronę celu: Q ← Q + α · (target − Q).
+     * @param state indeks stanu
+     * @param action indeks akcji
+     * @param target wartość docelowa (r + γ · max_a' Q(s',a'))
+     * @param alpha współczynnik uczenia
+     * @return błąd TD: target − Q sprzed aktualizacji
+     */
+    default double blend(int state, int action, double target, double alpha) {
+        double oldQ = get(state, action);
+        double tdError = target - oldQ;
+        set(state, action, oldQ + alpha * tdError);
+        return tdError;
+    }
+
+    /**
+     * Zwraca największą wartość Q w wierszu danego stanu (po wszystkich akcjach).
+     * @param state indeks stanu
+     * @return max_a Q(s,a)
+     */
+    default double max(int state) {
+        double best = get(state, 0);
+        for (int a = 1; a < numActions(); a++) {
+            double v = get(state, a);
+            if (v > best) best = v;
+        }
+        return best;
+    }
+
+    /**
+     * Dla wielu stanów naraz wybiera akcję o największej wartości Q spośród akcji dozwolonych maską.
+     * Przy równych wartościach wybierana jest akcja o najmniejszym indeksie; dla pustej maski
+     * wynikiem jest akcja -1 i wartość {@link Double#NEGATIVE_INFINITY}.
+     * @param states indeksy stanów (wierszy)
+     * @param actionMasks maski dozwolonych akcji (bit a = akcja a)
+     * @param outActions tablica na wybrane akcje
+     * @param outMaxQ tablica na wartości Q wybranych akcji (lub null)
+     * @param count liczba stanów do przetworzenia
+     */
+    default void bestActions(int[] states, int[] actionMasks, int[] outActions, double[] outMaxQ, int count) {
+        for (int i = 0; i < count; i++) {
+            int state = states[i];
+            int mask = actionMasks[i];
+            int best = -1;
+            double bestQ = Double.NEGATIVE_INFINITY;
+            for (; mask != 0; mask &= mask - 1) {
+                int a = Integer.numberOfTrailingZeros(mask);
+                double q = get(state, a);
+                if (best < 0 || q > bestQ) {
+                    bestQ = q;
+                    best = a;
+                }
+            }
+            outActions[i] = best;
+            if (outMaxQ != null) {
+                outMaxQ[i] = bestQ;
+            }
+        }
+    }
+
+    /**
+     * Kopiuje wartości z tablicy dwuwymiarowej (np. wczytanej ze starego formatu pliku).
+     * @param values tablica o wymiarach numStates() × numActions()
+     */
+    default void copyFrom(double[][] values) {
+        for (int s = 0; s < numStates(); s++) {
+            double[] row = values[s];
+            for (int a = 0; a < numActions(); a++) {
+                set(s, a, row[a]);
+            }
+        }
+    }
+
+    /**
+     * Kopiuje wartości z innej tablicy Q o tych samych wymiarach.
+     * @param other tablica źródłowa
+     */
+    default void copyFrom(QTable other) {
+        for (int s = 0; s < numStates(); s++) {
+            for (int a = 0; a < numActions(); a++) {
+                set(s, a, other.get(s, a));
+            }
+        }
+    }
+
+    /**
+     * Oblicza sumę kontrolną zawartości (bity wszystkich wartości w kolejności wierszy) –
+     * do porównywania, czy dwa przebiegi treningu dały identyczne co do bitu tablice.
+     * @return 64-bitowa suma kontrolna
+     */
+    default long checksum() {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int s = 0; s < numStates(); s++) {
+            for (int a = 0; a < numActions(); a++) {
+                h = (h ^ Double.doubleToLongBits(get(s, a))) * 0x100000001B3L;
+                h ^= h >>> 29;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Tworzy kopię zawartości w postaci tablicy dwuwymiarowej.
+     * @return nowa tablica Q[stateIndex][action]
+     */
+    default double[][] toArray() {
+        double[][] out = new double[numStates()][numActions()];
+        for (int s = 0; s < numStates(); s++) {
+            for (int a = 0; a < numActions(); a++) {
+                out[s][a] = get(s, a);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binarny, wersjonowany format pliku tablicy Q.
+ * <p>
+ * Układ pliku (little-endian): 64-bajtowy nagłówek, a za nim wartości Q wiersz po wierszu
+ * ({@code state * numActions + action}):
+ * <pre>
+ *  0  magic "TTTQ"          4  wersja             8  flagi (bit 0: tryb symetryczny)
+ * 12  typ wartości         16  liczba stanów      20  liczba akcji
+ * 24  alpha                32  gamma              40  epsilon
+ * 48  skala (INT8)         56  CRC32 danych
+ * </pre>
+ * Dane mają stały rozmiar rekordu, więc plik można odwzorować w pamięci
+ * ({@link FileChannel#map}) i serwować ruchy bez kopiowania tablicy na stertę.
+ */
+public final class QTableFile {
+    /** Sygnatura pliku: bajty "TTTQ" */
+    public static final int MAGIC = 0x51545454;
+    /** Bieżąca wersja formatu */
+    public static final int VERSION = 1;
+    /** Rozmiar nagłówka w bajtach */
+    public static final int HEADER_SIZE = 64;
+
+    /** Flaga nagłówka: tablica w trybie symetrycznym (wiersze = klasy symetrii) */
+    private static final int FLAG_SYMMETRIC = 1;
+
+    /** Sposób zapisu wartości Q */
+    public enum ValueType {
+        /** double, 8 bajtów – bez straty precyzji */
+        FLOAT64(8),
+        /** float, 4 bajty */
+        FLOAT32(4),
+        /** bajt ze znakiem, wartość = bajt · skala */
+        INT8(1);
+
+        private final int bytes;
+
+        ValueType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Zwraca rozmiar jednej wartości w bajtach.
+         * @return liczba bajtów
+         */
+        public int bytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Nagłówek pliku tablicy Q.
+     * @param version wersja formatu
+     * @param symmetric czy tablica jest w trybie symetrycznym
+     * @param valueType sposób zapisu wartości
+     * @param numStates liczba stanów
+     * @param numActions liczba akcji
+     * @param alpha współczynnik uczenia agenta
+     * @param gamma współczynnik dyskonta agenta
+     * @param epsilon epsilon agenta w chwili zapisu
+     * @param scale skala kwantyzacji (tylko INT8)
+     * @param checksum CRC32 sekcji danych
+     */
+    public record Header(int version, boolean symmetric, ValueType valueType, int numStates, int numActions,
+                         double alpha, double gamma, double epsilon, double scale, long checksum) {
+
+        /**
+         * Zwraca rozmiar sekcji danych w bajtach.
+         * @return liczba bajtów danych
+         */
+        public long dataSize() {
+            return (long) numStates * numActions * valueType.bytes();
+        }
+    }
+
+    private QTableFile() {
+    }
+
+    /**
+     * Zapisuje tablicę Q do pliku.
+     * @param filename ścieżka do pliku
+     * @param table tablica Q
+     * @param symmetric czy tablica jest w trybie symetrycznym
+     * @param alpha współczynnik uczenia agenta
+     * @param gamma współczynnik dyskonta agenta
+     * @param epsilon bieżący epsilon agenta
+     * @param valueType sposób zapisu wartości
+     * @throws IOException w przypadku błędu zapisu
+     */
+    public static void write(String filename, QTable table, boolean symmetric, double alpha, double gamma,
+                             double epsilon, ValueType valueType) throws IOException {
+        int numStates = table.numStates();
+        int numActions = table.numActions();
+        double scale = 0.0;
+        if (valueType == ValueType.INT8) {
+            double maxAbs = 0.0;
+            for (int s = 0; s < numStates; s++) {
+                for (int a = 0; a < numActions; a++) {
+                    maxAbs = Math.max(maxAbs, Math.abs(table.get(s, a)));
+                }
+            }
+            scale = maxAbs > 0 ? maxAbs / 127.0 : 1.0;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(numStates * numActions * valueType.bytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int s = 0; s < numStates; s++) {
+            for (int a = 0; a < numActions; a++) {
+                double v = table.get(s, a);
+                switch (valueType) {
+                    case FLOAT64 -> data.putDouble(v);
+                    case FLOAT32 -> data.putFloat((float) v);
+                    case INT8 -> data.put((byte) Math.round(v / scale));
+                }
+            }
+        }
+        data.flip();
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(symmetric ? FLAG_SYMMETRIC : 0)
+                .putInt(valueType.ordinal())
+                .putInt(numStates)
+                .putInt(numActions)
+                .putDouble(alpha)
+                .putDouble(gamma)
+                .putDouble(epsilon)
+                .putDouble(scale)
+                .putLong(crc.getValue());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            while (data.hasRemaining()) channel.write(data);
+        }
+    }
+
+    /**
+     * Sprawdza, czy plik zaczyna się sygnaturą tego formatu.
+     * @param filename ścieżka do pliku
+     * @return true dla pliku w formacie binarnym, false dla innego (np. starej serializacji)
+     * @throws IOException w przypadku błędu odczytu
+     */
+    public static boolean isQTableFile(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            return Integer.reverseBytes(in.readInt()) == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wczytuje i sprawdza nagłówek pliku.
+     * @param filename ścieżka do pliku
+     * @return nagłówek
+     * @throws IOException w przypadku błędu odczytu lub niepoprawnego nagłówka
+     */
+    public static Header readHeader(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    /**
+     * Wczytuje i sprawdza nagłówek pliku z otwartego kanału (od pozycji 0).
+     */
+    static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, buf.position()) < 0) {
+                throw new IOException("Plik tablicy Q jest za krótki");
+            }
+        }
+        buf.flip();
+        if (buf.getInt() != MAGIC) {
+            throw new IOException("Niepoprawna sygnatura pliku tablicy Q");
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Nieobsługiwana wersja pliku tablicy Q: " + version);
+        }
+        int flags = buf.getInt();
+        int type = buf.getInt();
+        if (type < 0 || type >= ValueType.values().length) {
+            throw new IOException("Nieznany typ wartości w pliku tablicy Q: " + type);
+        }
+        Header header = new Header(version, (flags & FLAG_SYMMETRIC) != 0, ValueType.values()[type],
+                buf.getInt(), buf.getInt(), buf.getDouble(), buf.getDouble(), buf.getDouble(),
+                buf.getDouble(), buf.getLong());
+        if (channel.size() != HEADER_SIZE + header.dataSize()) {
+            throw new IOException("Rozmiar pliku tablicy Q nie zgadza się z nagłówkiem");
+        }
+        return header;
+    }
+
+    /**
+     * Wczytuje wartości z pliku do podanej tablicy Q (kopia na stertę lub do bufora tablicy).
+     * @param filename ścieżka do pliku
+     * @param table tablica docelowa o wymiarach zgodnych z nagłówkiem
+     * @return nagłówek wczytanego pliku
+     * @throws IOException w przypadku błędu odczytu, niezgodnych wymiarów lub sumy kontrolnej
+     */
+    public static Header read(String filename, QTable table) throws IOException {
+        MappedQTable mapped = map(filename, true);
+        Header header = mapped.header();
+        if (header.numStates() != table.numStates() || header.numActions() != table.numActions()) {
+            throw new IOException("Niezgodne wymiary tablicy Q: " + header.numStates() + " × " + header.numActions());
+        }
+        table.copyFrom(mapped);
+        return header;
+    }
+
+    /**
+     * Odwzorowuje plik w pamięci jako tablicę Q tylko do odczytu.
+     * @param filename ścieżka do pliku
+     * @param verifyChecksum czy sprawdzić sumę kontrolną (wymaga jednokrotnego przejścia po danych)
+     * @return tablica Q serwowana bezpośrednio z odwzorowanego pliku
+     * @throws IOException w przypadku błędu odczytu lub niezgodnej sumy kontrolnej
+     */
+    public static MappedQTable map(String filename, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, header.dataSize());
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (verifyChecksum) {
+                CRC32 crc = new CRC32();
+                crc.update(data.duplicate());
+                if (crc.getValue() != header.checksum()) {
+                    throw new IOException("Niezgodna suma kontrolna pliku tablicy Q");
+                }
+            }
+            return new MappedQTable(header, data);
+        }
+    }
+
+    /**
+     * Wczytuje tablicę Q zapisaną starym sposobem (serializacja Javy tablicy double[][]).
+     * @param filename ścieżka do pliku
+     * @return wczytana tablica
+     * @throws IOException w przypadku błędu odczytu lub nieoczekiwanej zawartości
+     */
+    public static double[][] readLegacy(String filename) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
+            Object obj = ois.readObject();
+            if (obj instanceof double[][] loaded && loaded.length > 0) {
+                return loaded;
+            }
+            throw new IOException("Plik nie zawiera tablicy double[][]");
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
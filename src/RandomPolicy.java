@@ -0,0 +1,25 @@
+import java.util.Random;
+
+/**
+ * Przeciwnik wykonujący losowe ruchy (jednostajnie spośród pustych pól).
+ */
+public class RandomPolicy implements MovePolicy {
+    private final Random rand;
+
+    /**
+     * Tworzy przeciwnika losowego.
+     * @param rand generator losowy (np. wspólny dla puli przeciwników)
+     */
+    public RandomPolicy(Random rand) {
+        this.rand = rand;
+    }
+
+    @Override
+    public int chooseAction(int boardIndex, byte[] fields) {
+        int empty = Transitions.emptyMask(boardIndex);
+        for (int n = rand.nextInt(Integer.bitCount(empty)); n > 0; n--) {
+            empty &= empty - 1;
+        }
+        return Integer.numberOfTrailingZeros(empty);
+    }
+}
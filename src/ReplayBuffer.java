@@ -0,0 +1,208 @@
+import java.util.SplittableRandom;
+
+/**
+ * Bufor doświadczeń (experience replay) o stałej pojemności: pierścień przejść
+ * (stan, akcja, nagroda, następny stan) zapisanych w tablicach prymitywnych, bez obiektów na przejście.
+ * <p>
+ * Przejścia są losowane jednostajnie albo priorytetowo – proporcjonalnie do (|błąd TD| + 0,001)^0,6,
+ * przy czym nowe przejście dostaje największy dotąd priorytet. Priorytety są przechowywane w drzewie sum
+ * (tablica {@code double[]}), więc losowanie i zmiana priorytetu kosztują O(log pojemności).
+ * <p>
+ * Metody {@link #add} i {@link #replay} mogą być wywoływane z różnych wątków (zbieranie przejść
+ * w wątku treningu, aktualizacje w wątku uczącym): stan bufora jest chroniony jego monitorem,
+ * a aktualizacje tablicy Q wykonywane są poza blokadą, na kopii wylosowanej paczki.
+ */
+public class ReplayBuffer {
+    /** Sposób losowania przejść */
+    public enum Sampling {
+        /** Każde przejście w buforze z jednakowym prawdopodobieństwem */
+        UNIFORM,
+        /** Proporcjonalnie do priorytetu wynikającego z ostatniego błędu TD */
+        PRIORITIZED
+    }
+
+    /** Wykładnik priorytetu */
+    private static final double PRIORITY_EXPONENT = 0.6;
+    /** Składnik dodawany do |błędu TD|, aby każde przejście mogło zostać wylosowane */
+    private static final double PRIORITY_EPSILON = 1e-3;
+
+    /** Liczba miejsc w buforze (potęga dwójki) */
+    private final int capacity;
+    private final int[] states;
+    private final byte[] actions;
+    private final float[] rewards;
+    private final int[] nextStates;
+    /** Drzewo sum priorytetów: węzeł i ma dzieci 2i i 2i+1, liście zaczynają się od indeksu capacity */
+    private final double[] priorityTree;
+    private double maxPriority = 1.0;
+    private SplittableRandom rand = new SplittableRandom();
+
+    /** Indeks miejsca na kolejne przejście */
+    private int head;
+    /** Liczba przejść w buforze */
+    private int size;
+    /** Łączna liczba dodanych przejść */
+    private long added;
+
+    /** Wylosowana paczka – kopia przejść i ich miejsc w buforze */
+    private int[] batchSlots = new int[0];
+    private int[] batchStates = new int[0];
+    private int[] batchActions = new int[0];
+    private double[] batchRewards = new double[0];
+    private int[] batchNextStates = new int[0];
+    private double[] batchTdErrors = new double[0];
+
+    /**
+     * Tworzy pusty bufor.
+     * @param capacity minimalna liczba przechowywanych przejść (zaokrąglana w górę do potęgi dwójki, co najmniej 2)
+     * @param sampling sposób losowania przejść
+     */
+    public ReplayBuffer(int capacity, Sampling sampling) {
+        if (capacity < 1 || capacity > (1 << 28)) {
+            throw new IllegalArgumentException("Niepoprawna pojemność bufora: " + capacity);
+        }
+        this.capacity = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.states = new int[this.capacity];
+        this.actions = new byte[this.capacity];
+        this.rewards = new float[this.capacity];
+        this.nextStates = new int[this.capacity];
+        this.priorityTree = (sampling == Sampling.PRIORITIZED) ? new double[2 * this.capacity] : null;
+    }
+
+    /**
+     * Ustawia ziarno generatora losującego przejścia.
+     * @param seed ziarno
+     */
+    public synchronized void setSeed(long seed) {
+        rand = new SplittableRandom(seed);
+    }
+
+    /**
+     * Dodaje przejście; gdy bufor jest pełny, zastępuje najstarsze.
+     * @param stateIndex indeks stanu
+     * @param action wykonana akcja (0-8)
+     * @param reward nagroda
+     * @param nextStateIndex indeks następnego stanu (-1 dla stanu terminalnego)
+     */
+    public synchronized void add(int stateIndex, int action, double reward, int nextStateIndex) {
+        int slot = head;
+        states[slot] = stateIndex;
+        actions[slot] = (byte) action;
+        rewards[slot] = (float) reward;
+        nextStates[slot] = nextStateIndex;
+        if (priorityTree != null) {
+            setPriority(slot, maxPriority);
+        }
+        head = (head + 1) & (capacity - 1);
+        if (size < capacity) {
+            size++;
+        }
+        added++;
+    }
+
+    /**
+     * Zwraca liczbę przejść w buforze.
+     * @return liczba przejść
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Zwraca łączną liczbę dodanych przejść (także tych już zastąpionych).
+     * @return liczba dodanych przejść
+     */
+    public synchronized long added() {
+        return added;
+    }
+
+    /**
+     * Losuje paczkę przejść i aktualizuje nimi tablicę Q agenta ({@link QLearningAgent#update}).
+     * W trybie priorytetowym priorytety wylosowanych przejść są następnie ustawiane według nowych błędów TD.
+     * @param agent agent, którego tablica Q jest aktualizowana
+     * @param batchSize liczba przejść w paczce
+     * @param recorder licznik metryk wątku wywołującego, do którego trafiają błędy TD (lub null)
+     * @return liczba wykonanych aktualizacji (0, gdy bufor jest pusty)
+     */
+    public int replay(QLearningAgent agent, int batchSize, TrainingMetrics.Recorder recorder) {
+        int n = sample(batchSize);
+        for (int i = 0; i < n; i++) {
+            batchTdErrors[i] = agent.update(batchStates[i], batchActions[i], batchRewards[i], batchNextStates[i]);
+        }
+        if (recorder != null) {
+            for (int i = 0; i < n; i++) {
+                recorder.recordTdError(batchTdErrors[i]);
+            }
+        }
+        if (priorityTree != null && n > 0) {
+            updatePriorities(n);
+        }
+        return n;
+    }
+
+    /**
+     * Kopiuje losową paczkę przejść do tablic paczki.
+     * Tablice paczki należą do jednego wątku uczącego, więc {@link #replay} nie może być wywoływane
+     * równocześnie z wielu wątków.
+     */
+    private synchronized int sample(int batchSize) {
+        if (size == 0) {
+            return 0;
+        }
+        if (batchSlots.length < batchSize) {
+            batchSlots = new int[batchSize];
+            batchStates = new int[batchSize];
+            batchActions = new int[batchSize];
+            batchRewards = new double[batchSize];
+            batchNextStates = new int[batchSize];
+            batchTdErrors = new double[batchSize];
+        }
+        for (int i = 0; i < batchSize; i++) {
+            int slot = (priorityTree != null) ? samplePrioritized() : rand.nextInt(size);
+            batchSlots[i] = slot;
+            batchStates[i] = states[slot];
+            batchActions[i] = actions[slot];
+            batchRewards[i] = rewards[slot];
+            batchNextStates[i] = nextStates[slot];
+        }
+        return batchSize;
+    }
+
+    /**
+     * Schodzi drzewem sum od korzenia do liścia wskazanego przez losową wartość z [0, suma priorytetów).
+     */
+    private int samplePrioritized() {
+        double u = rand.nextDouble() * priorityTree[1];
+        int node = 1;
+        while (node < capacity) {
+            node <<= 1;
+            if (u >= priorityTree[node] && priorityTree[node + 1] > 0) {
+                u -= priorityTree[node];
+                node++;
+            }
+        }
+        return node - capacity;
+    }
+
+    /**
+     * Ustawia priorytety wylosowanych przejść według błędów TD. Przejście mogło w międzyczasie zostać
+     * zastąpione nowym – wtedy nowe przejście dostaje ten priorytet, co jedynie zmienia kolejność losowania.
+     */
+    private synchronized void updatePriorities(int n) {
+        for (int i = 0; i < n; i++) {
+            double priority = Math.pow(Math.abs(batchTdErrors[i]) + PRIORITY_EPSILON, PRIORITY_EXPONENT);
+            setPriority(batchSlots[i], priority);
+            if (priority > maxPriority) {
+                maxPriority = priority;
+            }
+        }
+    }
+
+    private void setPriority(int slot, double priority) {
+        int node = slot + capacity;
+        priorityTree[node] = priority;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            priorityTree[node] = priorityTree[2 * node] + priorityTree[2 * node + 1];
+        }
+    }
+}
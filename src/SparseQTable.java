@@ -0,0 +1,267 @@
+import java.util.Arrays;
+
+/**
+ * Rzadka tablica Q dla dużych przestrzeni stanów (np. plansze 4 × 4 i 5 × 5): mapa z kluczem {@code long}
+ * i adresowaniem otwartym (sondowanie liniowe), której wartościami są wiersze {@code float}
+ * przechowywane w jednej płaskiej tablicy. Wiersz powstaje przy pierwszej aktualizacji stanu;
+ * odczyt nieistniejącego wiersza daje same zera.
+ * <p>
+ * Bez limitu tablica rośnie (podwojenie przy wypełnieniu 70%). Z limitem liczby wierszy, po jego
+ * osiągnięciu nowy wiersz zastępuje wiersz wybrany algorytmem CLOCK (przybliżenie LRU: wskazówka
+ * pomija wiersze użyte od ostatniego przejścia, zerując ich bit użycia).
+ */
+public class SparseQTable {
+    /** Znacznik pustego miejsca (klucze stanów są nieujemne) */
+    private static final long EMPTY = -1L;
+    /** Maksymalne wypełnienie tablicy mieszającej */
+    private static final double LOAD_FACTOR = 0.7;
+
+    private final int numActions;
+    /** Limit liczby wierszy (0 = bez limitu) */
+    private final int maxEntries;
+
+    private long[] keys;
+    private float[] values;
+    /** Bity użycia dla algorytmu CLOCK (tylko z limitem) */
+    private boolean[] referenced;
+    private int mask;
+    private int size;
+    private int hand;
+    private long evictions;
+
+    /**
+     * Tworzy pustą tablicę bez limitu liczby wierszy.
+     * @param numActions liczba akcji (długość wiersza)
+     */
+    public SparseQTable(int numActions) {
+        this(numActions, 0);
+    }
+
+    /**
+     * Tworzy pustą tablicę.
+     * @param numActions liczba akcji (długość wiersza)
+     * @param maxEntries limit liczby wierszy (0 = bez limitu); pamięć jest rezerwowana od razu
+     */
+    public SparseQTable(int numActions, int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Niepoprawny limit wierszy: " + maxEntries);
+        }
+        this.numActions = numActions;
+        this.maxEntries = maxEntries;
+        int capacity = 1024;
+        while (maxEntries > 0 && capacity * LOAD_FACTOR < maxEntries) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new float[capacity * numActions];
+        referenced = (maxEntries > 0) ? new boolean[capacity] : null;
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Zwraca miejsce wiersza stanu albo -1, jeśli stanu nie ma w tablicy.
+     */
+    private int find(long key) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                if (referenced != null) referenced[i] = true;
+                return i;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Zwraca miejsce wiersza stanu, w razie potrzeby tworząc wyzerowany wiersz.
+     */
+    private int findOrInsert(long key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (maxEntries > 0) {
+            if (size >= maxEntries) {
+                evict();
+            }
+        } else if (size + 1 > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (referenced != null) referenced[i] = true;
+        size++;
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == EMPTY) continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            System.arraycopy(oldValues, j * numActions, values, i * numActions, numActions);
+            size++;
+        }
+    }
+
+    /**
+     * Usuwa wiersz wybrany algorytmem CLOCK.
+     */
+    private void evict() {
+        while (true) {
+            hand = (hand + 1) & mask;
+            if (keys[hand] == EMPTY) continue;
+            if (referenced[hand]) {
+                referenced[hand] = false;
+            } else {
+                removeAt(hand);
+                evictions++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Usuwa wpis z miejsca i, przesuwając wstecz kolejne wpisy łańcucha sondowania,
+     * aby wyszukiwanie nie wymagało znaczników usunięcia.
+     */
+    private void removeAt(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == EMPTY) {
+                break;
+            }
+            int home = hash(k) & mask;
+            boolean stays = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                keys[i] = k;
+                referenced[i] = referenced[j];
+                System.arraycopy(values, j * numActions, values, i * numActions, numActions);
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        Arrays.fill(values, i * numActions, (i + 1) * numActions, 0f);
+        size--;
+    }
+
+    /**
+     * Zwraca wartość Q (0 dla stanu spoza tablicy).
+     * @param key klucz stanu
+     * @param action akcja
+     * @return wartość Q
+     */
+    public double get(long key, int action) {
+        int slot = find(key);
+        return (slot < 0) ? 0.0 : values[slot * numActions + action];
+    }
+
+    /**
+     * Zwraca akcję o największej wartości Q spośród akcji z maski (przy równych – o najmniejszym indeksie).
+     * @param key klucz stanu
+     * @param actionMask maska dozwolonych akcji (niezerowa)
+     * @return indeks akcji
+     */
+    public int bestAction(long key, long actionMask) {
+        int slot = find(key);
+        int best = Long.numberOfTrailingZeros(actionMask);
+        if (slot < 0) {
+            return best;
+        }
+        int base = slot * numActions;
+        float bestQ = values[base + best];
+        for (long rest = actionMask & (actionMask - 1); rest != 0; rest &= rest - 1) {
+            int a = Long.numberOfTrailingZeros(rest);
+            float q = values[base + a];
+            if (q > bestQ) {
+                bestQ = q;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Zwraca największą wartość Q spośród akcji z maski (0 dla pustej maski lub stanu spoza tablicy).
+     * @param key klucz stanu
+     * @param actionMask maska dozwolonych akcji
+     * @return maksimum Q
+     */
+    public double maxQ(long key, long actionMask) {
+        int slot = (actionMask == 0) ? -1 : find(key);
+        if (slot < 0) {
+            return 0.0;
+        }
+        int base = slot * numActions;
+        float best = Float.NEGATIVE_INFINITY;
+        for (; actionMask != 0; actionMask &= actionMask - 1) {
+            float q = values[base + Long.numberOfTrailingZeros(actionMask)];
+            if (q > best) best = q;
+        }
+        return best;
+    }
+
+    /**
+     * Przesuwa wartość Q w stronę celu: Q ← Q + alpha * (target - Q), tworząc wiersz w razie potrzeby.
+     * @param key klucz stanu
+     * @param action akcja
+     * @param target cel aktualizacji
+     * @param alpha współczynnik uczenia
+     * @return błąd TD (target - Q sprzed aktualizacji)
+     */
+    public double blend(long key, int action, double target, double alpha) {
+        int index = findOrInsert(key) * numActions + action;
+        double oldQ = values[index];
+        double tdError = target - oldQ;
+        values[index] = (float) (oldQ + alpha * tdError);
+        return tdError;
+    }
+
+    /**
+     * Zwraca liczbę wierszy (stanów) w tablicy.
+     * @return liczba wierszy
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Zwraca liczbę wierszy usuniętych z powodu limitu.
+     * @return liczba usunięć
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Zwraca liczbę bajtów zajmowanych przez tablice mapy (klucze, wartości, bity użycia).
+     * @return rozmiar w bajtach
+     */
+    public long memoryBytes() {
+        return 8L * keys.length + 4L * values.length + (referenced != null ? referenced.length : 0);
+    }
+}
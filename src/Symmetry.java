@@ -0,0 +1,122 @@
+import java.util.Arrays;
+
+/**
+ * Kanonizacja stanów planszy względem ośmiu symetrii (obroty i odbicia).
+ * Każdy osiągalny stan jest odwzorowany na zwarty indeks swojej klasy symetrii
+ * (765 klas zamiast 5478 osiągalnych stanów i 19683 wszystkich układów),
+ * a akcje są przeliczane pomiędzy współrzędnymi planszy i postaci kanonicznej.
+ * Tablice są budowane jednorazowo podczas ładowania klasy.
+ */
+public final class Symmetry {
+    /** Liczba wszystkich układów planszy (3^9) */
+    private static final int NUM_RAW_STATES = 19683;
+
+    /** Zwarty indeks klasy symetrii dla każdego stanu (-1, jeśli stan jest nieosiągalny) */
+    private static final int[] COMPACT_INDEX = new int[NUM_RAW_STATES];
+    /** Numer symetrii (wiersz Constants.SYMMETRIES) przeprowadzającej stan do postaci kanonicznej */
+    private static final byte[] TRANSFORM = new byte[NUM_RAW_STATES];
+    /** Postać kanoniczna (najmniejszy indeks w klasie symetrii) każdego stanu */
+    private static final int[] CANONICAL = new int[NUM_RAW_STATES];
+
+    /** Liczba osiągalnych stanów po utożsamieniu symetrii (765) */
+    public static final int NUM_CANONICAL_STATES;
+
+    static {
+        Arrays.fill(COMPACT_INDEX, -1);
+        for (int raw = 0; raw < NUM_RAW_STATES; raw++) {
+            int best = raw;
+            int bestT = 0;
+            for (int t = 1; t < Constants.SYMMETRIES.length; t++) {
+                int idx = applyToIndex(raw, t);
+                if (idx < best) {
+                    best = idx;
+                    bestT = t;
+                }
+            }
+            TRANSFORM[raw] = (byte) bestT;
+            CANONICAL[raw] = best;
+        }
+        int[] canonicalToCompact = new int[NUM_RAW_STATES];
+        Arrays.fill(canonicalToCompact, -1);
+        int[] counter = new int[1];
+        markReachable(new Board(), (byte) 1, canonicalToCompact, counter);
+        NUM_CANONICAL_STATES = counter[0];
+    }
+
+    private Symmetry() {
+    }
+
+    /**
+     * Przechodzi całe drzewo gry (X zaczyna) i nadaje zwarte indeksy napotkanym klasom symetrii.
+     */
+    private static void markReachable(Board board, byte player, int[] canonicalToCompact, int[] counter) {
+        int raw = board.getStateIndex();
+        if (COMPACT_INDEX[raw] >= 0) {
+            return;
+        }
+        int canonical = CANONICAL[raw];
+        if (canonicalToCompact[canonical] < 0) {
+            canonicalToCompact[canonical] = counter[0]++;
+        }
+        COMPACT_INDEX[raw] = canonicalToCompact[canonical];
+        if (board.isWin((byte) 1) || board.isWin((byte) 2) || board.isFull()) {
+            return;
+        }
+        byte next = (player == 1) ? (byte) 2 : (byte) 1;
+        for (int pos = 0; pos < 9; pos++) {
+            if (board.makeMove(pos, player)) {
+                markReachable(board, next, canonicalToCompact, counter);
+                board.undoMove(pos);
+            }
+        }
+    }
+
+    /**
+     * Oblicza indeks stanu po zastosowaniu symetrii t.
+     */
+    private static int applyToIndex(int raw, int t) {
+        int[] perm = Constants.SYMMETRIES[t];
+        int out = 0;
+        for (int i = 0; i < 9; i++) {
+            int value = (raw / Constants.POW3[i]) % 3;
+            out += value * Constants.POW3[perm[i]];
+        }
+        return out;
+    }
+
+    /**
+     * Zwraca zwarty indeks klasy symetrii dla stanu.
+     * @param stateIndex indeks stanu (Board.getStateIndex())
+     * @return indeks 0..NUM_CANONICAL_STATES-1 lub -1, jeśli stan jest nieosiągalny
+     */
+    public static int compactIndex(int stateIndex) {
+        return COMPACT_INDEX[stateIndex];
+    }
+
+    /**
+     * Zwraca postać kanoniczną stanu – ten sam indeks dla wszystkich stanów klasy symetrii.
+     * @param stateIndex indeks stanu (Board.getStateIndex())
+     * @return indeks stanu w postaci kanonicznej
+     */
+    public static int canonicalState(int stateIndex) {
+        return CANONICAL[stateIndex];
+    }
+
+    /**
+     * Zwraca permutację pól przeprowadzającą stan do postaci kanonicznej.
+     * @param stateIndex indeks stanu (Board.getStateIndex())
+     * @return permutacja: perm[pole na planszy] = pole w postaci kanonicznej
+     */
+    public static int[] toCanonical(int stateIndex) {
+        return Constants.SYMMETRIES[TRANSFORM[stateIndex]];
+    }
+
+    /**
+     * Zwraca permutację odwrotną do {@link #toCanonical(int)}.
+     * @param stateIndex indeks stanu (Board.getStateIndex())
+     * @return permutacja: perm[pole w postaci kanonicznej] = pole na planszy
+     */
+    public static int[] fromCanonical(int stateIndex) {
+        return Constants.SYMMETRY_INVERSE[TRANSFORM[stateIndex]];
+    }
+}
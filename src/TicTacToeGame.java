@@ -2,11 +2,11 @@ import java.util.Random;
 import java.util.Scanner;
 
 public class TicTacToeGame {
-    private final QLearningAgent agent;
+    private final MovePolicy agent;
     private final Scanner scanner;
     private final Random rand;
 
-    public TicTacToeGame(QLearningAgent agent) {
+    public TicTacToeGame(MovePolicy agent) {
         this.agent = agent;
         this.scanner = new Scanner(System.in);
         this.rand = new Random();
@@ -88,17 +88,19 @@ public class TicTacToeGame {
         scanner.close();
     }
 
-    // Wyświetlenie planszy w konsoli
+    // Wyświetlenie planszy w konsoli – cała plansza składana w jednym buforze i wypisywana jednym wywołaniem
     private void printBoard(Board board) {
         byte[] f = board.getFields();
-        System.out.println();
+        StringBuilder sb = new StringBuilder(24);
+        sb.append('\n');
         for (int i = 0; i < 9; i++) {
             char c = '.';
             if (f[i] == 1) c = 'X';
             else if (f[i] == 2) c = 'O';
-            System.out.print(c + " ");
-            if (i % 3 == 2) System.out.println();
+            sb.append(c).append(' ');
+            if (i % 3 == 2) sb.append('\n');
         }
-        System.out.println();
+        sb.append('\n');
+        System.out.print(sb);
     }
 }
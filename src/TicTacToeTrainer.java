@@ -1,9 +1,20 @@
-import java.util.Random;
+import java.io.IOException;
+import java.util.SplittableRandom;
 
         /**
          * Klasa odpowiedzialna za trenowanie agenta Q-learning w grze kółko-krzyżyk 3 × 3.
          */
         public class TicTacToeTrainer {
+            /** Wynik epizodu z punktu widzenia agenta */
+            public enum Outcome {
+                /** Agent wygrał */
+                WIN,
+                /** Agent przegrał lub dopuścił do natychmiastowej wygranej przeciwnika */
+                LOSS,
+                /** Remis */
+                DRAW
+            }
+
             /** Agent Q-learning */
             private final QLearningAgent agent;
             /** Liczba epizodów treningowych */
@@ -13,7 +24,50 @@ import java.util.Random;
             /** Minimalna wartość epsilon */
             private final double minEpsilon;
 
-            private final Random rand;
+            /** Generator losowy trenera (kto zaczyna, ruchy losowego przeciwnika, ziarna punktów kontrolnych) */
+            private SplittableRandom rand;
+
+            /** Plansza używana ponownie w epizodach z przeciwnikiem z puli (przekazuje mu tablicę pól) */
+            private final Board board = new Board();
+
+            /** Co ile epizodów wypisywany jest postęp (0 = trening bez komunikatów) */
+            private int reportInterval = 10000;
+
+            /** Metryki treningu (null = bez metryk) */
+            private TrainingMetrics metrics;
+            /** Licznik metryk tego trenera (null = bez metryk) */
+            private TrainingMetrics.Recorder recorder;
+
+            /** Zapis punktów kontrolnych (null = bez punktów kontrolnych) */
+            private Checkpointer checkpointer;
+            /** Co ile epizodów zapisywany jest punkt kontrolny */
+            private int checkpointInterval;
+            /** Numer pierwszego epizodu (większy od 1 po wznowieniu treningu) */
+            private int firstEpisode = 1;
+            /** Stan, od którego wznowiono trening (null = trening od początku) */
+            private Checkpointer.State resumedFrom;
+            /** Liczba rozegranych epizodów (łącznie z epizodami sprzed wznowienia) */
+            private long episode;
+
+            /** Pula przeciwników (null = losowy przeciwnik z karą za dopuszczenie do wygranej) */
+            private OpponentPool opponents;
+
+            /** Bufor doświadczeń (null = aktualizacja tablicy Q od razu po każdym przejściu) */
+            private ReplayBuffer replay;
+            /** Liczba przejść w paczce aktualizacji z bufora */
+            private int replayBatch;
+            /** Czy aktualizacje z bufora wykonuje osobny wątek uczący */
+            private boolean replayInBackground;
+            /** Blokada wątku uczącego – wstrzymuje aktualizacje na czas zapisu punktu kontrolnego */
+            private final Object replayLock = new Object();
+            /** Czy wątek uczący ma kontynuować pracę */
+            private volatile boolean learning;
+
+            /** Monitor zbieżności (null = trening przez wszystkie epizody) */
+            private ConvergenceMonitor convergence;
+
+            /** Ślad epizodu (null = aktualizacja 1-krokowa od razu po każdym przejściu) */
+            private EpisodeTrace trace;
 
             /**
              * Tworzy nowy obiekt trenera.
@@ -27,7 +81,130 @@ import java.util.Random;
                 this.episodes = episodes;
                 this.epsilonDecay = epsilonDecay;
                 this.minEpsilon = minEpsilon;
-                this.rand = new Random();
+                this.rand = new SplittableRandom();
+            }
+
+            /**
+             * Ustawia, co ile epizodów wypisywany jest postęp treningu.
+             * @param reportInterval liczba epizodów między komunikatami (0 = bez komunikatów)
+             */
+            public void setReportInterval(int reportInterval) {
+                this.reportInterval = reportInterval;
+            }
+
+            /**
+             * Włącza zbieranie metryk treningu. Trener zapisuje zdarzenia do własnego licznika
+             * ({@link TrainingMetrics#newRecorder()}), więc jedne metryki mogą obsługiwać wiele wątków.
+             * @param metrics metryki treningu (lub null, aby wyłączyć)
+             */
+            public void setMetrics(TrainingMetrics metrics) {
+                this.metrics = metrics;
+                this.recorder = (metrics != null) ? metrics.newRecorder() : null;
+            }
+
+            /**
+             * Włącza zapisywanie punktów kontrolnych co podaną liczbę epizodów. Pierwszy, pełny punkt
+             * kontrolny jest zapisywany na początku {@link #train()}, a ostatni – na jego końcu.
+             * @param checkpointer zapis punktów kontrolnych (lub null, aby wyłączyć)
+             * @param interval liczba epizodów między punktami kontrolnymi
+             */
+            public void setCheckpointer(Checkpointer checkpointer, int interval) {
+                if (checkpointer != null && interval < 1) {
+                    throw new IllegalArgumentException("Okres punktów kontrolnych musi być dodatni: " + interval);
+                }
+                this.checkpointer = checkpointer;
+                this.checkpointInterval = interval;
+            }
+
+            /**
+             * Włącza trening przeciwko puli przeciwników ({@link OpponentPool}) zamiast losowego
+             * przeciwnika. Przeciwnik każdego epizodu jest losowany według harmonogramu puli,
+             * a agent uczy się zwykłym Q-learningiem, bez kary za dopuszczenie do wygranej.
+             * @param opponents pula przeciwników (lub null, aby wrócić do losowego przeciwnika)
+             */
+            public void setOpponentPool(OpponentPool opponents) {
+                this.opponents = opponents;
+            }
+
+            /**
+             * Włącza uczenie z bufora doświadczeń: przejścia trafiają do bufora zamiast od razu do tablicy Q,
+             * a tablica Q jest aktualizowana paczkami losowanymi z bufora – po każdym epizodzie albo
+             * nieprzerwanie w osobnym wątku uczącym, równolegle z rozgrywaniem epizodów.
+             * W trybie z wątkiem uczącym metryki nie zawierają błędu TD.
+             * @param replay bufor doświadczeń (lub null, aby wrócić do aktualizacji po każdym przejściu)
+             * @param batchSize liczba przejść w paczce
+             * @param background true – aktualizacje w osobnym wątku, false – paczka po każdym epizodzie
+             */
+            public void setReplayBuffer(ReplayBuffer replay, int batchSize, boolean background) {
+                if (replay != null && batchSize < 1) {
+                    throw new IllegalArgumentException("Rozmiar paczki musi być dodatni: " + batchSize);
+                }
+                this.replay = replay;
+                this.replayBatch = batchSize;
+                this.replayInBackground = background;
+            }
+
+            /**
+             * Włącza wczesne zatrzymanie: co {@link ConvergenceMonitor#window()} epizodów monitor sprawdza
+             * strategię zachłanną agenta i może zakończyć trening przed wykonaniem wszystkich epizodów.
+             * @param convergence monitor zbieżności (lub null, aby wyłączyć)
+             */
+            public void setConvergenceMonitor(ConvergenceMonitor convergence) {
+                this.convergence = convergence;
+                agent.setConvergenceMonitor(convergence);
+            }
+
+            /**
+             * Włącza aktualizację zwrotami wielokrokowymi: przejścia agenta są zapisywane w śladzie,
+             * a tablica Q jest aktualizowana w jednym przebiegu wstecz na końcu epizodu. Z losowym
+             * przeciwnikiem zapisywane są wtedy także przejścia bez nagrody między ruchami agenta.
+             * Ślad zastępuje bufor doświadczeń – przejścia agenta nie trafiają do bufora.
+             * @param trace ślad epizodu (lub null, aby wrócić do aktualizacji 1-krokowej)
+             */
+            public void setEpisodeTrace(EpisodeTrace trace) {
+                this.trace = trace;
+            }
+
+            /**
+             * Ustawia ziarno generatorów losowych trenera, agenta i puli przeciwników.
+             * @param seed ziarno
+             */
+            public void setSeed(long seed) {
+                rand = new SplittableRandom(seed);
+                agent.setSeed(~seed);
+                if (opponents != null) {
+                    opponents.setSeed(seed + 1);
+                }
+                if (replay != null) {
+                    replay.setSeed(seed + 2);
+                }
+            }
+
+            /**
+             * Przygotowuje wznowienie treningu z punktu kontrolnego ({@link Checkpointer#restore}):
+             * trening będzie kontynuowany od następnego epizodu, z zapisanym epsilon i ziarnem.
+             * Pulę przeciwników należy ustawić wcześniej – jej kopie agenta są odświeżane z odtworzonej tablicy.
+             * @param state stan treningu z punktu kontrolnego
+             */
+            public void resume(Checkpointer.State state) {
+                resumedFrom = state;
+                episode = state.episode();
+                firstEpisode = (int) state.episode() + 1;
+                agent.setEpsilon(state.epsilon());
+                setSeed(state.seed());
+                if (opponents != null) {
+                    opponents.refreshSnapshots();
+                }
+            }
+
+            /**
+             * Losuje nowe ziarno, inicjuje nim generatory i zwraca stan treningu do punktu kontrolnego.
+             * Wznowienie z tym stanem odtwarza dalszy przebieg treningu.
+             */
+            private Checkpointer.State reseed(int episode) {
+                long seed = rand.nextLong();
+                setSeed(seed);
+                return new Checkpointer.State(episode, agent.getEpsilon(), seed);
             }
 
             /**
@@ -36,153 +213,408 @@ import java.util.Random;
              * @param oppPlayer numer przeciwnika (1 lub 2)
              * @return true, jeśli przeciwnik może wygrać w następnym ruchu, false w przeciwnym razie
              */
-            private boolean willOpponentWinNext(Board board, byte oppPlayer) {
-                int[] emptyPos = new int[9];
-                int numEmpty = board.getEmptyPositions(emptyPos);
-                for (int i = 0; i < numEmpty; i++) {
-                    int pos = emptyPos[i];
-                    board.makeMove(pos, oppPlayer);
-                    boolean win = board.isWin(oppPlayer);
-                    board.undoMove(pos);
-                    if (win) return true;
-                }
-                return false;
+            boolean willOpponentWinNext(Board board, byte oppPlayer) {
+                return board.findWinningMove(oppPlayer) >= 0;
             }
 
             /**
              * Przeprowadza proces treningu agenta Q-learning.
              * Agent gra jako '2' (O), a przeciwnik wykonuje losowe ruchy jako '1' (X).
              * Po każdym epizodzie zmniejszany jest epsilon.
-             * Co 10000 epizodów wypisywany jest postęp treningu.
+             * Co reportInterval (domyślnie 10000) epizodów wypisywany jest postęp treningu.
              */
             public void train() {
 
-                System.out.println("Rozpoczynam trening agenta Q-learning...");
+                if (reportInterval > 0) {
+                    System.out.println("Rozpoczynam trening agenta Q-learning...");
+                }
 
-                /*
-                 * Tablica do przechowywania indeksów pustych pól.
-                 */
-                int[] emptyPos = new int[9];
+                if (checkpointer != null) {
+                    try {
+                        checkpointer.start(resumedFrom != null ? resumedFrom : reseed(firstEpisode - 1));
+                    } catch (IOException e) {
+                        System.err.println("Nie udało się zapisać punktu kontrolnego, trening bez punktów kontrolnych: "
+                                + e.getMessage());
+                        checkpointer = null;
+                    }
+                }
+
+                Thread learner = (replay != null && replayInBackground) ? startLearner() : null;
+                Checkpointer.State lastCheckpoint = null;
+                int lastEpisode = episodes;
+                for (int ep = firstEpisode; ep <= episodes; ep++) {
+                    trainEpisode();
 
-                for (int ep = 1; ep <= episodes; ep++) {
                     /*
-                     * Tworzy jedną instancję planszy, która jest modyfikowana i cofana w trakcie epizodu.
+                     * Punkt kontrolny co checkpointInterval epizodów – zapis odbywa się w tle.
                      */
-                    Board board = new Board();
-
-                    // Losuj, kto zaczyna: 1 = X, 2 = O
-                    byte agentPlayer = (rand.nextBoolean() ? (byte)1 : (byte)2);
-                    byte oppPlayer = (agentPlayer == 1) ? (byte)2 : (byte)1;
-                    byte currentPlayer = 1; // X zawsze zaczyna
+                    if (checkpointer != null && ep % checkpointInterval == 0) {
+                        synchronized (replayLock) {
+                            lastCheckpoint = reseed(ep);
+                            checkpointer.checkpoint(lastCheckpoint);
+                        }
+                    }
 
-                    int prevStateIndex = -1;
-                    int prevAction = -1;
+                    /*
+                     * Raportowanie postępu co reportInterval epizodów.
+                     */
+                    if (reportInterval > 0 && ep % reportInterval == 0) {
+                        report(ep);
+                    }
 
                     /*
-                     * Pętla pojedynczego epizodu – trwa do zakończenia gry.
+                     * Sprawdzenie zbieżności – wątek uczący jest wstrzymany, bo monitor nie jest synchronizowany.
                      */
-                    while (true) {
-                        int stateIndex = board.getStateIndex();
+                    if (convergence != null && ep % convergence.window() == 0) {
+                        boolean converged;
+                        synchronized (replayLock) {
+                            converged = convergence.check(ep);
+                        }
+                        if (converged) {
+                            lastEpisode = ep;
+                            break;
+                        }
+                    }
+                }
+                if (learner != null) {
+                    stopLearner(learner);
+                }
+                if (recorder != null) {
+                    recorder.flush(agent.getEpsilon());
+                }
+                if (checkpointer != null) {
+                    /*
+                     * Ostatni punkt kontrolny – synchronicznie. Jeśli trening skończył się dokładnie
+                     * na punkcie kontrolnym, zapisywany jest ten sam stan (bez ponownego losowania ziarna).
+                     */
+                    if (lastCheckpoint == null || lastCheckpoint.episode() != lastEpisode) {
+                        lastCheckpoint = reseed(Math.max(lastEpisode, firstEpisode - 1));
+                    }
+                    checkpointer.sync(lastCheckpoint);
+                }
+                if (reportInterval > 0 && opponents != null) {
+                    opponents.printReport();
+                }
+                if (reportInterval > 0 && convergence != null && convergence.reason() != null) {
+                    System.out.printf("Zbieżność po %d epizodach (%s, zmiany strategii: %d, max |ΔQ| %.3g) – "
+                                    + "pominięto %d z %d epizodów (%.1f%%).%n",
+                            lastEpisode, convergence.reason(), convergence.lastPolicyChanges(), convergence.lastMaxDelta(),
+                            episodes - lastEpisode, episodes, 100.0 * (episodes - lastEpisode) / episodes);
+                }
+                if (reportInterval > 0) {
+                    System.out.println("Trening zakończony.");
+                }
+            }
 
-                        if (currentPlayer == agentPlayer) {
-                            /*
-                             * Ruch agenta – wybór akcji i wykonanie.
-                             */
-                            byte[] fields = board.getFields();
-                            int action = agent.chooseAction(stateIndex, fields);
-                            board.makeMove(action, agentPlayer);
+            /**
+             * Rozgrywa podaną liczbę epizodów bez komunikatów i punktów kontrolnych
+             * (runda treningu równoległego), a na końcu publikuje metryki.
+             * @param count liczba epizodów
+             */
+            void trainEpisodes(int count) {
+                for (int i = 0; i < count; i++) {
+                    trainEpisode();
+                }
+                if (recorder != null) {
+                    recorder.flush(agent.getEpsilon());
+                }
+            }
 
-                            /*
-                             * Sprawdzenie, czy agent wygrał.
-                             */
-                            if (board.isWin(agentPlayer)) {
-                                /*
-                                 * Stan terminalny: agent wygrał – nagroda +1.
-                                 */
-                                agent.update(stateIndex, action, +1.0, -1);
-                                board.undoMove(action);
-                                break;
-                            }
+            /**
+             * Uruchamia wątek uczący, który aktualizuje tablicę Q paczkami z bufora doświadczeń,
+             * dopóki trwa rozgrywanie epizodów. Jedynym wątkiem zapisującym tablicę Q jest wątek uczący;
+             * wątek treningu tylko ją odczytuje przy wyborze ruchów.
+             */
+            private Thread startLearner() {
+                learning = true;
+                Thread learner = new Thread(() -> {
+                    while (learning) {
+                        int updates;
+                        synchronized (replayLock) {
+                            updates = replay.replay(agent, replayBatch, null);
+                        }
+                        if (updates == 0) {
+                            Thread.yield();
+                        }
+                    }
+                }, "replay-learner");
+                learner.setDaemon(true);
+                learner.start();
+                return learner;
+            }
 
-                            /*
-                             * Kara za dopuszczenie do natychmiastowej wygranej przeciwnika
-                             */
-                            if (willOpponentWinNext(board, oppPlayer)) {
-                                agent.update(stateIndex, action, -0.8, -1); // kara -0.8
-                                board.undoMove(action);
-                                break;
-                            }
+            private void stopLearner(Thread learner) {
+                learning = false;
+                try {
+                    learner.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
 
+            /**
+             * Rozgrywa jeden epizod (z przeciwnikiem z puli, jeśli jest ustawiona),
+             * po nim zmniejsza epsilon i zapisuje wynik w metrykach.
+             */
+            void trainEpisode() {
+                episode++;
+                Outcome outcome;
+                if (opponents == null) {
+                    outcome = playEpisode();
+                } else {
+                    int opponent = opponents.pick((double) (episode - 1) / episodes);
+                    outcome = playEpisode(opponents.policy(opponent));
+                    opponents.record(opponent, outcome, episode);
+                }
+                if (trace != null) {
+                    trace.apply(agent, recorder);
+                }
 
+                /*
+                 * Po zakończeniu epizodu zmniejszany jest epsilon.
+                 */
+                agent.decayEpsilon(epsilonDecay, minEpsilon);
+                if (replay != null && !replayInBackground) {
+                    replay.replay(agent, replayBatch, recorder);
+                }
+                if (recorder != null) {
+                    recorder.recordEpisode(outcome, agent.getEpsilon());
+                }
+            }
+
+            /**
+             * Wypisuje postęp treningu; z włączonymi metrykami – także wyniki ostatniego okna.
+             */
+            private void report(int ep) {
+                if (metrics == null) {
+                    System.out.printf("Epizod %d/%d – epsilon=%.5f%n", ep, episodes, agent.getEpsilon());
+                    return;
+                }
+                TrainingMetrics.Snapshot s = metrics.lastSnapshot();
+                System.out.printf("Epizod %d/%d – epsilon=%.5f, wygrane %.1f%%, porażki %.1f%%, remisy %.1f%%, "
+                                + "błąd TD %.3g, stany %d, %.0f epizodów/s%n",
+                        ep, episodes, agent.getEpsilon(), 100 * s.winRate(), 100 * s.lossRate(), 100 * s.drawRate(),
+                        s.meanTdError(), s.statesVisited(), s.episodesPerSecond());
+            }
+
+            /**
+             * Aktualizuje tablicę Q agenta i zapisuje błąd TD w metrykach;
+             * z buforem doświadczeń jedynie zapisuje przejście w buforze.
+             */
+            private void learn(int stateIndex, int action, double reward, int nextStateIndex) {
+                if (trace != null) {
+                    trace.add(stateIndex, action, reward, nextStateIndex);
+                    return;
+                }
+                if (replay != null) {
+                    replay.add(stateIndex, action, reward, nextStateIndex);
+                    return;
+                }
+                double tdError = agent.update(stateIndex, action, reward, nextStateIndex);
+                if (recorder != null) {
+                    recorder.recordTdError(tdError);
+                }
+            }
+
+            /**
+             * Rozgrywa jeden epizod treningowy (jedną partię) i aktualizuje tablicę Q agenta.
+             * @return wynik epizodu z punktu widzenia agenta
+             */
+            Outcome playEpisode() {
+                /*
+                 * Stan epizodu to sam indeks stanu: puste pola, wynik i zagrożenia są odczytywane
+                 * z tablic przejść ({@link Transitions}), bez planszy i bez alokacji.
+                 */
+                int stateIndex = 0;
+
+                // Losuj, kto zaczyna: 1 = X, 2 = O
+                byte agentPlayer = (rand.nextBoolean() ? (byte)1 : (byte)2);
+                byte oppPlayer = (agentPlayer == 1) ? (byte)2 : (byte)1;
+                byte currentPlayer = 1; // X zawsze zaczyna
+
+                int prevStateIndex = -1;
+                int prevAction = -1;
+
+                /*
+                 * Pętla pojedynczego epizodu – trwa do zakończenia gry.
+                 */
+                while (true) {
+                    int emptyMask = Transitions.emptyMask(stateIndex);
+
+                    if (currentPlayer == agentPlayer) {
+                        /*
+                         * Ze śladem epizodu zapisywane jest też przejście bez nagrody od poprzedniego
+                         * ruchu agenta – nagroda końcowa dociera wtedy do wszystkich ruchów partii.
+                         */
+                        if (trace != null && prevStateIndex >= 0) {
+                            learn(prevStateIndex, prevAction, 0.0, stateIndex);
+                        }
+                        /*
+                         * Ruch agenta – wybór akcji i wykonanie.
+                         */
+                        int action = agent.chooseAction(stateIndex, emptyMask);
+                        if (recorder != null) {
+                            recorder.recordState(stateIndex);
+                        }
+                        int nextIndex = Transitions.next(stateIndex, action, agentPlayer);
+                        byte status = Transitions.status(nextIndex);
+
+                        /*
+                         * Sprawdzenie, czy agent wygrał.
+                         */
+                        if (status == agentPlayer) {
                             /*
-                             * Sprawdzenie remisu.
-                             */
-                            if (board.isFull()) {
-                                /*
-                                 * Remis: nagroda 0.
-                                 */
-                                agent.update(stateIndex, action, 0.0, -1);
-                                board.undoMove(action);
-                                break;
-                            }
-                            /*
-                             * Gra trwa – zapamiętanie stanu i akcji, zmiana gracza.
+                             * Stan terminalny: agent wygrał – nagroda +1.
                              */
-                            prevStateIndex = stateIndex;
-                            prevAction = action;
-                            currentPlayer = oppPlayer;
+                            learn(stateIndex, action, +1.0, -1);
+                            return Outcome.WIN;
+                        }
+
+                        /*
+                         * Kara za dopuszczenie do natychmiastowej wygranej przeciwnika
+                         */
+                        if (Transitions.winningMoves(nextIndex, oppPlayer) != 0) {
+                            learn(stateIndex, action, -0.8, -1); // kara -0.8
+                            return Outcome.LOSS;
+                        }
+
 
-                        } else {
+                        /*
+                         * Sprawdzenie remisu.
+                         */
+                        if (status == Transitions.DRAW) {
                             /*
-                             * Ruch losowego przeciwnika.
+                             * Remis: nagroda 0.
                              */
-                            int numEmpty = board.getEmptyPositions(emptyPos);
-                            int move = emptyPos[rand.nextInt(numEmpty)];
-                            board.makeMove(move, oppPlayer);
+                            learn(stateIndex, action, 0.0, -1);
+                            return Outcome.DRAW;
+                        }
+                        /*
+                         * Gra trwa – zapamiętanie stanu i akcji, zmiana gracza.
+                         */
+                        prevStateIndex = stateIndex;
+                        prevAction = action;
+                        stateIndex = nextIndex;
+                        currentPlayer = oppPlayer;
+
+                    } else {
+                        /*
+                         * Ruch losowego przeciwnika.
+                         */
+                        int move = nthSetBit(emptyMask, rand.nextInt(Integer.bitCount(emptyMask)));
+                        int nextIndex = Transitions.next(stateIndex, move, oppPlayer);
+                        byte status = Transitions.status(nextIndex);
 
+                        /*
+                         * Sprawdzenie, czy przeciwnik wygrał.
+                         */
+                        if (status == oppPlayer) {
                             /*
-                             * Sprawdzenie, czy przeciwnik wygrał.
+                             * Agent otrzymuje -1 za poprzedni ruch.
                              */
-                            if (board.isWin(oppPlayer)) {
-                                /*
-                                 * Agent otrzymuje -1 za poprzedni ruch.
-                                 */
-                                if (prevStateIndex >= 0 && prevAction >= 0) {
-                                    int nextIndex = board.getStateIndex();
-                                    agent.update(prevStateIndex, prevAction, -1.0, nextIndex);
-                                }
-                                board.undoMove(move);
-                                break;
+                            if (prevStateIndex >= 0 && prevAction >= 0) {
+                                learn(prevStateIndex, prevAction, -1.0, nextIndex);
                             }
-                            /*
-                             * Sprawdzenie remisu.
-                             */
-                            if (board.isFull()) {
-                                if (prevStateIndex >= 0 && prevAction >= 0) {
-                                    agent.update(prevStateIndex, prevAction, 0.0, -1);
-                                }
-                                board.undoMove(move);
-                                break;
+                            return Outcome.LOSS;
+                        }
+                        /*
+                         * Sprawdzenie remisu.
+                         */
+                        if (status == Transitions.DRAW) {
+                            if (prevStateIndex >= 0 && prevAction >= 0) {
+                                learn(prevStateIndex, prevAction, 0.0, -1);
                             }
-                            /*
-                             * Gra trwa – wraca ruch do agenta.
-                             */
-                            currentPlayer = agentPlayer;
+                            return Outcome.DRAW;
                         }
+                        /*
+                         * Gra trwa – wraca ruch do agenta.
+                         */
+                        stateIndex = nextIndex;
+                        currentPlayer = agentPlayer;
                     }
+                }
+            }
 
-                    /*
-                     * Po zakończeniu epizodu zmniejszany jest epsilon.
-                     */
-                    agent.decayEpsilon(epsilonDecay, minEpsilon);
+            /**
+             * Zwraca indeks n-tego (liczonego od zera) ustawionego bitu maski.
+             */
+            private static int nthSetBit(int mask, int n) {
+                for (int k = 0; k < n; k++) {
+                    mask &= mask - 1;
+                }
+                return Integer.numberOfTrailingZeros(mask);
+            }
 
-                    /*
-                     * Raportowanie postępu co 10000 epizodów.
-                     */
-                    if (ep % 10000 == 0) {
-                        System.out.printf("Epizod %d/%d – epsilon=%.5f%n", ep, episodes, agent.getEpsilon());
+            /**
+             * Rozgrywa jeden epizod treningowy przeciwko podanej strategii i aktualizuje tablicę Q agenta.
+             * Przeciwnik jest częścią środowiska: po ruchu agenta i odpowiedzi przeciwnika agent
+             * otrzymuje nagrodę 0 i stan, w którym znów ma ruch; nagrody terminalne to +1 (wygrana),
+             * -1 (porażka) i 0 (remis).
+             * @param opponent strategia przeciwnika (niedozwolony ruch zastępowany jest pierwszym wolnym polem)
+             * @return wynik epizodu z punktu widzenia agenta
+             */
+            Outcome playEpisode(MovePolicy opponent) {
+                board.clear();
+
+                // Losuj, kto zaczyna: 1 = X, 2 = O
+                byte agentPlayer = (rand.nextBoolean() ? (byte)1 : (byte)2);
+                byte oppPlayer = (agentPlayer == 1) ? (byte)2 : (byte)1;
+                byte currentPlayer = 1; // X zawsze zaczyna
+
+                int prevStateIndex = -1;
+                int prevAction = -1;
+
+                while (true) {
+                    int stateIndex = board.getStateIndex();
+
+                    if (currentPlayer == agentPlayer) {
+                        /*
+                         * Nagroda 0 za poprzedni ruch – gra toczy się dalej.
+                         */
+                        if (prevStateIndex >= 0) {
+                            learn(prevStateIndex, prevAction, 0.0, stateIndex);
+                        }
+                        int action = agent.chooseAction(stateIndex, Transitions.emptyMask(stateIndex));
+                        if (recorder != null) {
+                            recorder.recordState(stateIndex);
+                        }
+                        board.makeMove(action, agentPlayer);
+                        byte status = Transitions.status(board.getStateIndex());
+
+                        if (status == agentPlayer) {
+                            learn(stateIndex, action, +1.0, -1);
+                            return Outcome.WIN;
+                        }
+                        if (status == Transitions.DRAW) {
+                            learn(stateIndex, action, 0.0, -1);
+                            return Outcome.DRAW;
+                        }
+                        prevStateIndex = stateIndex;
+                        prevAction = action;
+                        currentPlayer = oppPlayer;
+
+                    } else {
+                        int move = opponent.chooseAction(stateIndex, board.getFields());
+                        if (!board.makeMove(move, oppPlayer)) {
+                            move = Integer.numberOfTrailingZeros(board.getEmptyMask());
+                            board.makeMove(move, oppPlayer);
+                        }
+                        byte status = Transitions.status(board.getStateIndex());
+
+                        if (status == oppPlayer) {
+                            if (prevStateIndex >= 0) {
+                                learn(prevStateIndex, prevAction, -1.0, -1);
+                            }
+                            return Outcome.LOSS;
+                        }
+                        if (status == Transitions.DRAW) {
+                            if (prevStateIndex >= 0) {
+                                learn(prevStateIndex, prevAction, 0.0, -1);
+                            }
+                            return Outcome.DRAW;
+                        }
+                        currentPlayer = agentPlayer;
                     }
                 }
-                System.out.println("Trening zakończony.");
             }
-        }
\ No newline at end of file
+        }
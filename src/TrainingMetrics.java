@@ -0,0 +1,313 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metryki treningu agenta: wygrane, porażki i remisy w oknie epizodów, błąd TD aktualizacji
+ * (średnia i histogram), liczba odwiedzonych stanów oraz przepustowość.
+ * <p>
+ * Każdy wątek treningu zapisuje zdarzenia do własnego {@link Recorder} – zwykłych pól
+ * i tablic prymitywnych, bez synchronizacji i bez alokacji. Dopiero po zamknięciu okna
+ * (co {@code windowSize} epizodów danego wątku) licznik jest scalany z sumami,
+ * a wynik publikowany jako niezmienna migawka: dla JMX ({@link TrainingMetricsMBean})
+ * i opcjonalnie do pliku ({@link MetricsSink}).
+ */
+public class TrainingMetrics implements TrainingMetricsMBean {
+    /** Nazwa, pod którą metryki są rejestrowane w serwerze MBean */
+    public static final String OBJECT_NAME = "TicTacToe:type=TrainingMetrics";
+
+    /** Górne granice przedziałów histogramu |błędu TD| (ostatni przedział jest otwarty) */
+    private static final double[] TD_BUCKET_BOUNDS = {1e-4, 1e-3, 1e-2, 1e-1, 1.0};
+    /** Liczba przedziałów histogramu */
+    public static final int TD_BUCKETS = TD_BUCKET_BOUNDS.length + 1;
+
+    /** Liczba słów long w mapie bitowej odwiedzonych stanów */
+    private static final int VISITED_WORDS = (QLearningAgent.NUM_STATES + 63) >>> 6;
+
+    /** Liczba epizodów w oknie jednego wątku */
+    private final int windowSize;
+    /** Ujście metryk (lub null) */
+    private MetricsSink sink;
+
+    /** Łączna liczba epizodów (chronione przez this) */
+    private long episodes;
+    /** Mapa bitowa stanów odwiedzonych przez wszystkie wątki (chronione przez this) */
+    private final long[] visited = new long[VISITED_WORDS];
+    /** Czas poprzedniej publikacji (chronione przez this) */
+    private long lastPublishNanos = System.nanoTime();
+
+    /** Ostatnia opublikowana migawka */
+    private volatile Snapshot last = new Snapshot(0, 0, 0, 0, 0, 0.0, new long[TD_BUCKETS], 0, 0.0, 0.0);
+
+    /**
+     * Migawka metryk z jednego zamkniętego okna.
+     * @param episodes łączna liczba epizodów po zamknięciu okna
+     * @param windowEpisodes liczba epizodów w oknie
+     * @param wins wygrane agenta w oknie
+     * @param losses porażki agenta w oknie
+     * @param draws remisy w oknie
+     * @param meanTdError średni |błąd TD| w oknie
+     * @param tdErrorHistogram histogram |błędu TD| w oknie
+     * @param statesVisited liczba stanów odwiedzonych od początku treningu
+     * @param episodesPerSecond przepustowość od poprzedniej publikacji
+     * @param epsilon epsilon agenta na końcu okna
+     */
+    public record Snapshot(long episodes, long windowEpisodes, long wins, long losses, long draws,
+                           double meanTdError, long[] tdErrorHistogram, int statesVisited,
+                           double episodesPerSecond, double epsilon) {
+
+        /**
+         * Zwraca odsetek epizodów okna z danym wynikiem.
+         */
+        private double rate(long count) {
+            return windowEpisodes == 0 ? 0.0 : count / (double) windowEpisodes;
+        }
+
+        /**
+         * Zwraca odsetek wygranych agenta w oknie.
+         * @return wartość z przedziału [0, 1]
+         */
+        public double winRate() {
+            return rate(wins);
+        }
+
+        /**
+         * Zwraca odsetek porażek agenta w oknie.
+         * @return wartość z przedziału [0, 1]
+         */
+        public double lossRate() {
+            return rate(losses);
+        }
+
+        /**
+         * Zwraca odsetek remisów w oknie.
+         * @return wartość z przedziału [0, 1]
+         */
+        public double drawRate() {
+            return rate(draws);
+        }
+    }
+
+    /**
+     * Tworzy metryki z podanym rozmiarem okna.
+     * @param windowSize liczba epizodów (jednego wątku), po której publikowana jest migawka
+     */
+    public TrainingMetrics(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Rozmiar okna musi być dodatni: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Ustawia ujście, do którego zapisywana jest każda migawka (np. plik CSV).
+     * @param sink ujście metryk (lub null)
+     */
+    public synchronized void setSink(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Tworzy licznik dla jednego wątku treningu.
+     * @return nowy licznik
+     */
+    public Recorder newRecorder() {
+        return new Recorder();
+    }
+
+    /**
+     * Rejestruje metryki w platformowym serwerze MBean pod nazwą {@link #OBJECT_NAME}.
+     * @throws JMException jeśli rejestracja się nie powiedzie (np. nazwa jest już zajęta)
+     */
+    public void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Wyrejestrowuje metryki z platformowego serwera MBean (jeśli były zarejestrowane).
+     * @throws JMException w przypadku błędu serwera MBean
+     */
+    public void unregisterMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * Zamyka ujście metryk (jeśli było ustawione).
+     * @throws IOException w przypadku błędu zamknięcia pliku
+     */
+    public synchronized void close() throws IOException {
+        if (sink != null) {
+            sink.close();
+            sink = null;
+        }
+    }
+
+    /**
+     * Zwraca ostatnią opublikowaną migawkę.
+     * @return migawka metryk
+     */
+    public Snapshot lastSnapshot() {
+        return last;
+    }
+
+    /**
+     * Scala okno licznika z sumami, publikuje migawkę i zapisuje ją do ujścia.
+     */
+    private synchronized void publish(Recorder r, double epsilon) {
+        episodes += r.windowEpisodes;
+        int statesVisited = 0;
+        for (int i = 0; i < VISITED_WORDS; i++) {
+            visited[i] |= r.visited[i];
+            statesVisited += Long.bitCount(visited[i]);
+        }
+        long now = System.nanoTime();
+        double seconds = (now - lastPublishNanos) / 1e9;
+        lastPublishNanos = now;
+
+        Snapshot snapshot = new Snapshot(episodes, r.windowEpisodes, r.wins, r.losses, r.draws,
+                r.updates == 0 ? 0.0 : r.tdErrorSum / r.updates, r.tdHistogram.clone(), statesVisited,
+                seconds > 0 ? r.windowEpisodes / seconds : 0.0, epsilon);
+        last = snapshot;
+        if (sink != null) {
+            try {
+                sink.write(snapshot);
+            } catch (IOException e) {
+                System.err.println("Błąd zapisu metryk, dalsze metryki nie będą zapisywane: " + e.getMessage());
+                sink = null;
+            }
+        }
+    }
+
+    @Override
+    public long getEpisodes() {
+        return last.episodes();
+    }
+
+    @Override
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public double getWinRate() {
+        return last.winRate();
+    }
+
+    @Override
+    public double getLossRate() {
+        return last.lossRate();
+    }
+
+    @Override
+    public double getDrawRate() {
+        return last.drawRate();
+    }
+
+    @Override
+    public double getMeanTdError() {
+        return last.meanTdError();
+    }
+
+    @Override
+    public long[] getTdErrorHistogram() {
+        return last.tdErrorHistogram().clone();
+    }
+
+    @Override
+    public int getStatesVisited() {
+        return last.statesVisited();
+    }
+
+    @Override
+    public double getEpisodesPerSecond() {
+        return last.episodesPerSecond();
+    }
+
+    @Override
+    public double getEpsilon() {
+        return last.epsilon();
+    }
+
+    /**
+     * Licznik zdarzeń jednego wątku treningu. Nie jest bezpieczny dla wielu wątków –
+     * każdy trener ma własny; metody zapisu nie alokują pamięci.
+     */
+    public class Recorder {
+        private long windowEpisodes;
+        private long wins;
+        private long losses;
+        private long draws;
+        private long updates;
+        private double tdErrorSum;
+        private final long[] tdHistogram = new long[TD_BUCKETS];
+        private final long[] visited = new long[VISITED_WORDS];
+
+        private Recorder() {
+        }
+
+        /**
+         * Zapisuje stan, w którym agent wykonał ruch.
+         * @param stateIndex indeks stanu planszy
+         */
+        public void recordState(int stateIndex) {
+            visited[stateIndex >>> 6] |= 1L << stateIndex;
+        }
+
+        /**
+         * Zapisuje błąd TD jednej aktualizacji tablicy Q.
+         * @param tdError błąd TD zwrócony przez {@link QLearningAgent#update}
+         */
+        public void recordTdError(double tdError) {
+            double abs = Math.abs(tdError);
+            int bucket = 0;
+            while (bucket < TD_BUCKET_BOUNDS.length && abs >= TD_BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            tdHistogram[bucket]++;
+            tdErrorSum += abs;
+            updates++;
+        }
+
+        /**
+         * Zapisuje wynik epizodu; po zapełnieniu okna publikuje migawkę.
+         * @param outcome wynik epizodu z punktu widzenia agenta
+         * @param epsilon bieżący epsilon agenta
+         */
+        public void recordEpisode(TicTacToeTrainer.Outcome outcome, double epsilon) {
+            switch (outcome) {
+                case WIN -> wins++;
+                case LOSS -> losses++;
+                case DRAW -> draws++;
+            }
+            if (++windowEpisodes >= windowSize) {
+                flush(epsilon);
+            }
+        }
+
+        /**
+         * Publikuje niepełne okno (np. na końcu treningu) i zeruje liczniki okna.
+         * @param epsilon bieżący epsilon agenta
+         */
+        public void flush(double epsilon) {
+            if (windowEpisodes == 0) {
+                return;
+            }
+            publish(this, epsilon);
+            windowEpisodes = 0;
+            wins = 0;
+            losses = 0;
+            draws = 0;
+            updates = 0;
+            tdErrorSum = 0.0;
+            Arrays.fill(tdHistogram, 0);
+        }
+    }
+}
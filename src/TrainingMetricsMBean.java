@@ -0,0 +1,68 @@
+/**
+ * Interfejs JMX metryk treningu ({@link TrainingMetrics}).
+ * Wartości pochodzą z ostatniego zamkniętego okna epizodów, dlatego ich odczyt
+ * (np. z JConsole lub VisualVM) nie spowalnia treningu.
+ */
+public interface TrainingMetricsMBean {
+
+    /**
+     * Zwraca łączną liczbę rozegranych epizodów.
+     * @return liczba epizodów
+     */
+    long getEpisodes();
+
+    /**
+     * Zwraca liczbę epizodów w oknie, z którego liczone są wskaźniki.
+     * @return rozmiar okna
+     */
+    int getWindowSize();
+
+    /**
+     * Zwraca odsetek wygranych agenta w ostatnim oknie.
+     * @return wartość z przedziału [0, 1]
+     */
+    double getWinRate();
+
+    /**
+     * Zwraca odsetek porażek agenta w ostatnim oknie.
+     * @return wartość z przedziału [0, 1]
+     */
+    double getLossRate();
+
+    /**
+     * Zwraca odsetek remisów w ostatnim oknie.
+     * @return wartość z przedziału [0, 1]
+     */
+    double getDrawRate();
+
+    /**
+     * Zwraca średni bezwzględny błąd TD aktualizacji w ostatnim oknie.
+     * @return średnie |r + γ · max Q(s') − Q(s,a)|
+     */
+    double getMeanTdError();
+
+    /**
+     * Zwraca histogram bezwzględnego błędu TD w ostatnim oknie
+     * (przedziały: &lt;1e-4, &lt;1e-3, &lt;1e-2, &lt;1e-1, &lt;1, ≥1).
+     * @return liczności przedziałów
+     */
+    long[] getTdErrorHistogram();
+
+    /**
+     * Zwraca liczbę różnych stanów, w których agent wykonał ruch od początku treningu.
+     * @return liczba odwiedzonych stanów
+     */
+    int getStatesVisited();
+
+    /**
+     * Zwraca przepustowość treningu w ostatnim oknie.
+     * @return epizody na sekundę
+     */
+    double getEpisodesPerSecond();
+
+    /**
+     * Zwraca epsilon agenta na końcu ostatniego okna.
+     * @return wartość epsilon
+     */
+    double getEpsilon();
+}
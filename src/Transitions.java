@@ -0,0 +1,127 @@
+/**
+ * Tablice przejść dla wszystkich 3^9 = 19 683 indeksów stanów planszy, budowane raz przy starcie:
+ * maska pustych pól, wynik stanu (gra trwa, wygrana X, wygrana O, remis) oraz maski pól dających
+ * natychmiastową wygraną każdemu z graczy. Pętle treningu i wyboru ruchu korzystają z nich zamiast
+ * wyliczać te wartości z planszy w każdym kroku.
+ * <p>
+ * Indeks następnego stanu nie jest tablicowany: {@link #next} to jedno mnożenie i dodawanie,
+ * a tablica 19 683 × 9 × 2 (ok. 700 KB) nie mieściłaby się w pamięci podręcznej L2 razem z tablicą Q.
+ */
+public final class Transitions {
+    /** Liczba indeksów stanów (3^9) */
+    public static final int NUM_STATES = 19683;
+
+    /** Wynik stanu: gra trwa */
+    public static final byte IN_PLAY = 0;
+    /** Wynik stanu: wygrał X (równy numerowi gracza X, więc status(s) == player oznacza wygraną gracza) */
+    public static final byte X_WINS = 1;
+    /** Wynik stanu: wygrał O (równy numerowi gracza O) */
+    public static final byte O_WINS = 2;
+    /** Wynik stanu: remis (pełna plansza bez linii) */
+    public static final byte DRAW = 3;
+
+    /** Maski pustych pól (9 bitów) */
+    private static final short[] EMPTY_MASK = new short[NUM_STATES];
+    /** Wyniki stanów (IN_PLAY, X_WINS, O_WINS, DRAW) */
+    private static final byte[] STATUS = new byte[NUM_STATES];
+    /** Pola natychmiastowej wygranej: bity 0-8 dla X, bity 9-17 dla O */
+    private static final int[] WINNING_MOVES = new int[NUM_STATES];
+
+    static {
+        build(EMPTY_MASK, STATUS, WINNING_MOVES);
+    }
+
+    private Transitions() {
+    }
+
+    /**
+     * Wypełnia tablice przejść dla wszystkich indeksów stanów (także nieosiągalnych w grze,
+     * np. z dwiema liniami – wynikiem jest wtedy wygrana X). Wydzielone na potrzeby pomiaru kosztu startu.
+     * @param emptyMasks tablica na maski pustych pól
+     * @param statuses tablica na wyniki stanów
+     * @param winningMoves tablica na maski pól natychmiastowej wygranej
+     */
+    static void build(short[] emptyMasks, byte[] statuses, int[] winningMoves) {
+        int[] winMasks = Constants.WIN_MASKS;
+        int empty = (1 << 9) - 1;
+        int xMask = 0;
+        int oMask = 0;
+        for (int s = 0; s < NUM_STATES; s++) {
+            emptyMasks[s] = (short) empty;
+            int xWins = 0;
+            int oWins = 0;
+            boolean xLine = false;
+            boolean oLine = false;
+            for (int i = 0; i < winMasks.length; i++) {
+                int line = winMasks[i];
+                xLine |= (xMask & line) == line;
+                oLine |= (oMask & line) == line;
+                int xMissing = line & ~xMask;
+                if (Integer.bitCount(xMissing) == 1) xWins |= xMissing & empty;
+                int oMissing = line & ~oMask;
+                if (Integer.bitCount(oMissing) == 1) oWins |= oMissing & empty;
+            }
+            statuses[s] = xLine ? X_WINS : oLine ? O_WINS : (empty == 0) ? DRAW : IN_PLAY;
+            winningMoves[s] = xWins | oWins << 9;
+
+            /*
+             * Przejście do indeksu s + 1: dodanie 1 w zapisie trójkowym z przeniesieniem –
+             * pola z cyfrą 2 stają się puste, pierwsze pole o mniejszej cyfrze rośnie o 1.
+             */
+            for (int pos = 0; pos < 9; pos++) {
+                int bit = 1 << pos;
+                if ((oMask & bit) != 0) {
+                    oMask &= ~bit;
+                    empty |= bit;
+                } else if ((xMask & bit) != 0) {
+                    xMask &= ~bit;
+                    oMask |= bit;
+                    break;
+                } else {
+                    empty &= ~bit;
+                    xMask |= bit;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Zwraca maskę pustych pól stanu.
+     * @param stateIndex indeks stanu planszy
+     * @return maska, w której bit i jest ustawiony, jeśli pole i jest puste
+     */
+    public static int emptyMask(int stateIndex) {
+        return EMPTY_MASK[stateIndex];
+    }
+
+    /**
+     * Zwraca wynik stanu.
+     * @param stateIndex indeks stanu planszy
+     * @return IN_PLAY, X_WINS, O_WINS lub DRAW
+     */
+    public static byte status(int stateIndex) {
+        return STATUS[stateIndex];
+    }
+
+    /**
+     * Zwraca maskę pól, których zajęcie daje graczowi natychmiastową wygraną.
+     * @param stateIndex indeks stanu planszy
+     * @param player numer gracza (1 = X, 2 = O)
+     * @return maska pól (0, jeśli gracz nie może wygrać jednym ruchem)
+     */
+    public static int winningMoves(int stateIndex, byte player) {
+        return (WINNING_MOVES[stateIndex] >>> (player == 1 ? 0 : 9)) & 0x1FF;
+    }
+
+    /**
+     * Zwraca indeks stanu po ruchu gracza na puste pole.
+     * @param stateIndex indeks stanu planszy
+     * @param action indeks pustego pola (0-8)
+     * @param player numer gracza (1 = X, 2 = O)
+     * @return indeks następnego stanu
+     */
+    public static int next(int stateIndex, int action, byte player) {
+        return stateIndex + player * Constants.POW3[action];
+    }
+}